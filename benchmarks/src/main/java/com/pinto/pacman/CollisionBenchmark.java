@@ -0,0 +1,49 @@
+package com.pinto.pacman;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Game#collision(Game.Block, Game.Block)} on overlapping and on separate blocks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CollisionBenchmark {
+    private Game game;
+    private Game.Block pacman;
+    private Game.Block overlapping;
+    private Game.Block separate;
+
+    @Setup
+    public void setup() {
+        game = new Game(19 * 32, 21 * 32, 32, new Random(42));
+        pacman = game.new Block(Sprite.PACMAN_RIGHT, 64, 64, 32, 32);
+        overlapping = game.new Block(Sprite.RED_GHOST, 80, 72, 32, 32);
+        separate = game.new Block(Sprite.RED_GHOST, 256, 320, 32, 32);
+    }
+
+    @Benchmark
+    public boolean overlapping() {
+        return game.collision(pacman, overlapping);
+    }
+
+    @Benchmark
+    public boolean separate() {
+        return game.collision(pacman, separate);
+    }
+}
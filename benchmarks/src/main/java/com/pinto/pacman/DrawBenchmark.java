@@ -0,0 +1,82 @@
+package com.pinto.pacman;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link PacMan#draw(java.awt.Graphics)} rendering a frame into an offscreen image.
+ * It runs headless, so it does not need a display. The view is always the size of level 1,
+ * so the cost of a frame must not grow with the size of the maze. The panel is scaled up to the size of a 4K screen
+ * too, the sprites being drawn from an atlas at the size of the tiles on the screen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class DrawBenchmark {
+    @Param({"false", "true"})
+    boolean paused;
+
+    // Size of the synthetic maze, 0 for level 1
+    @Param({"0", "1001"})
+    int mazeSize;
+
+    // Size of the panel, 0 for the size of the view
+    @Param({"0", "3840x2160"})
+    String screen;
+
+    private PacMan panel;
+    private BufferedImage image;
+    private Graphics2D graphics;
+
+    @Setup
+    public void setup() {
+        int width = 19 * 32;
+        int height = 21 * 32;
+        if (mazeSize == 0) {
+            panel = new PacMan(width, height, 32);
+        } else {
+            LevelData[] levels = {LevelData.of(Level.generateMaze(mazeSize, mazeSize, 42))};
+            panel = new PacMan(levels, width, height, 32, Game.DEFAULT_TICKS_PER_SECOND, PacMan.DEFAULT_MAX_FRAMES_PER_SECOND);
+        }
+        panel.gameLoop.stop();
+        panel.awaitAssets();
+        panel.paused = paused;
+
+        if (!screen.equals("0")) {
+            String[] size = screen.split("x");
+            width = Integer.parseInt(size[0]);
+            height = Integer.parseInt(size[1]);
+            panel.setSize(width, height);
+        }
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage draw() {
+        panel.draw(graphics);
+        return image;
+    }
+}
@@ -0,0 +1,48 @@
+package com.pinto.pacman;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Game#loadMap()} when the level changes and {@link Game#restart()} after a game over.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoadMapBenchmark {
+    private Game game;
+
+    @Setup
+    public void setup() {
+        game = new Game(19 * 32, 21 * 32, 32, new Random(42));
+    }
+
+    @Benchmark
+    public int levelChange() {
+        game.level = game.level % 3 + 1;
+        game.loadMap();
+        game.resetPosition();
+        return game.food.getDotCount();
+    }
+
+    @Benchmark
+    public int restart() {
+        game.gameOver = true;
+        game.restart();
+        return game.food.getDotCount();
+    }
+}
@@ -0,0 +1,57 @@
+package com.pinto.pacman;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Game#move()} on each stock level.
+ * Pac-Man turns every few moves so that it keeps walking around the maze.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+    @Param({"1", "2", "3"})
+    int level;
+
+    private Game game;
+    private char[] turns;
+    private int moves;
+
+    @Setup
+    public void setup() {
+        game = new Game(19 * 32, 21 * 32, 32, new Random(42), level);
+
+        Random random = new Random(7);
+        turns = new char[1024];
+        for (int i = 0; i < turns.length; i++) {
+            turns[i] = game.directions[random.nextInt(game.directions.length)];
+        }
+    }
+
+    @Benchmark
+    public int move() {
+        if (game.gameOver)
+            game.restart();
+        if ((moves++ & 7) == 0)
+            game.pacman.updateDirection(turns[(moves >>> 3) & (turns.length - 1)]);
+
+        game.move();
+        return game.score;
+    }
+}
@@ -0,0 +1,64 @@
+package com.pinto.pacman;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Game#move()} on synthetic mazes, to see how a tick scales with the maze size and the number of ghosts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class ScalingBenchmark {
+    @Param({"21", "101", "501"})
+    int mazeSize;
+
+    @Param({"4", "64", "1024", "8192"})
+    int ghostCount;
+
+    private Game game;
+    private char[] turns;
+    private int moves;
+
+    @Setup
+    public void setup() {
+        int boardSize = mazeSize * 32;
+        game = new Game(boardSize, boardSize, 32, new Random(42));
+        game.loadMap(Level.generateMaze(mazeSize, mazeSize, ghostCount, 42));
+        game.resetPosition();
+
+        Random random = new Random(7);
+        turns = new char[1024];
+        for (int i = 0; i < turns.length; i++) {
+            turns[i] = game.directions[random.nextInt(game.directions.length)];
+        }
+    }
+
+    @Benchmark
+    public int move() {
+        if (game.gameOver) {
+            game.lives = 3;
+            game.gameOver = false;
+        }
+        if ((moves++ & 7) == 0)
+            game.pacman.updateDirection(turns[(moves >>> 3) & (turns.length - 1)]);
+
+        game.move();
+        return game.score;
+    }
+}
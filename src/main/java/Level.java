@@ -1,93 +0,0 @@
-public class Level {
-    //X = wall, O = skip, P = pac man, ' ' = food
-    //Ghosts: b = blue, o = orange, p = pink, r = red
-    // F = power food
-
-    public static final String[] LEVEL_1 = {
-            "XXXXXXXXXXXXXXXXXXX",
-            "X        X        X",
-            "X XX XXX X XXX XX X",
-            "X        F        X",
-            "X XX X XXXXX X XX X",
-            "X    X       X    X",
-            "XXXX XXXX XXXX XXXX",
-            "OOOX X       X XOOO",
-            "XXXX X XXrXX X XXXX",
-            "O       bpo       O",
-            "XXXX X XXXXX X XXXX",
-            "OOOX X       X XOOO",
-            "XXXX X XXXXX X XXXX",
-            "X        X        X",
-            "X XX XXX X XXX XX X",
-            "X  X     P     X  X",
-            "XX X X XXXXX X X XX",
-            "X    X   X   X    X",
-            "X XXXXXX X XXXXXX X",
-            "X                 X",
-            "XXXXXXXXXXXXXXXXXXX"
-    };
-
-    public static final String[] LEVEL_2 = {
-            "XXXXXXXXXOXXXXXXXXX",
-            "X                 X",
-            "X XX XXX X XXX XX X",
-            "X        F        X",
-            "X XX X XXXXX X XX X",
-            "X    X       X    X",
-            "XXXX XXXX XXXX XXXX",
-            "OOOX X       X XOOO",
-            "XXXX X XXrXX X XXXX",
-            "O       bpo       O",
-            "XXXX X XXXXX X XXXX",
-            "OOOX X       X XOOO",
-            "XXXX X XXXXX X XXXX",
-            "X        X        X",
-            "X XX XXX X XXX XX X",
-            "X  X     P     X  X",
-            "XX X X XXXXX X X XX",
-            "X    X   X   X    X",
-            "X XXXXXX X XXXXXX X",
-            "X                 X",
-            "XXXXXXXXXOXXXXXXXXX"
-    };
-
-    public static final String[] LEVEL_3 = {
-            "XXXXXXXXXOXXXXXXXXX",
-            "X  X           X  X",
-            "X XX XXX X XXX XX X",
-            "X                 X",
-            "X XXXX XX  X XXXX X",
-            "X      X F X      X",
-            "XXXX XXX  XXXX XXXX",
-            "OOOX X       X XOOO",
-            "XXXX X XXrXX X XXXX",
-            "O       bpo       O",
-            "XXXX X XXXXX X XXXX",
-            "OOOX X       X XOOO",
-            "XXXX X XXXXX X XXXX",
-            "X        X        X",
-            "X XX XXX X XXX XX X",
-            "X  X     P     X  X",
-            "XX X X XXXXX X X XX",
-            "X    X   X   X    X",
-            "X XXXXXX X XXXXXX X",
-            "X                 X",
-            "XXXXXXXXXOXXXXXXXXX"
-    };
-
-
-
-    /**
-     * Get the level layout based on the level number.
-     * @param level the level number (1 to 3)
-     * @return the level layout as a String array
-     */
-    public static String[] getLevel(int level) {
-        return switch (level) {
-            case 1 -> LEVEL_1;
-            case 2 -> LEVEL_2;
-            case 3 -> LEVEL_3;
-            default -> LEVEL_1; // Default to level 1 if the level is not recognized
-        };
-    }
-}
\ No newline at end of file
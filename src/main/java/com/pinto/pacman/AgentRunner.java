@@ -0,0 +1,107 @@
+package com.pinto.pacman;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LongSummaryStatistics;
+import java.util.Random;
+
+/**
+ * AgentRunner lets a {@link MonteCarloAgent} play seeded games on every level layout and reports how often it clears
+ * each of them, to soak test the game and to compare the difficulty of the layouts.
+ * A game is won when the agent clears the level it started on, and lost when it loses its last life or runs out of ticks.
+ */
+public class AgentRunner {
+    private static final int ROW_COUNT = 21;
+    private static final int COLUMN_COUNT = 19;
+    private static final int TILE_SIZE = 32;
+
+    private final LevelData[] levels;
+    private final long maxTicks;
+    private final MonteCarloAgent agent;
+
+    /**
+     * Constructor for the AgentRunner class.
+     * @param levels The level layouts, or null for the levels of the Level class
+     * @param maxTicks The maximum number of ticks of a game
+     * @param agent The agent playing the games
+     */
+    AgentRunner(LevelData[] levels, long maxTicks, MonteCarloAgent agent) {
+        this.levels = levels;
+        this.maxTicks = maxTicks;
+        this.agent = agent;
+    }
+
+    /**
+     * Creates a game starting on a level.
+     * @param level The level to play
+     * @param seed The seed of the game
+     * @return the game
+     */
+    public Game newGame(int level, long seed) {
+        if (levels != null)
+            return new Game(levels, TILE_SIZE, new Random(seed), level, Game.DEFAULT_TICKS_PER_SECOND);
+        return new Game(COLUMN_COUNT * TILE_SIZE, ROW_COUNT * TILE_SIZE, TILE_SIZE, new Random(seed), level);
+    }
+
+    /**
+     * Lets the agent play a game until it clears its level, loses or runs out of ticks.
+     * @param game The game
+     * @return the number of ticks played
+     */
+    public long play(Game game) {
+        int level = game.level;
+        long tick = 0;
+        while (tick < maxTicks && !game.gameOver && game.level == level) {
+            game.step(agent.nextInput(game));
+            tick++;
+        }
+        return tick;
+    }
+
+    /**
+     * Plays games on every level layout and prints the win rate of each.
+     * Arguments: number of games per layout, search time per move in milliseconds, number of threads
+     * and maximum ticks per game, all optional, then level files to play instead of the stock levels.
+     */
+    public static void main(String[] args) throws IOException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        double budgetMillis = args.length > 1 ? Double.parseDouble(args[1]) : 10;
+        int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        long maxTicks = args.length > 3 ? Long.parseLong(args[3]) : 20_000;
+
+        LevelData[] levels = null;
+        if (args.length > 4) {
+            LevelLoader loader = new LevelLoader(LevelLoader.defaultCacheDirectory());
+            levels = new LevelData[args.length - 4];
+            for (int i = 4; i < args.length; i++) {
+                levels[i - 4] = loader.load(Path.of(args[i]));
+            }
+        }
+        int layouts = levels != null ? levels.length : Level.getLevelCount();
+
+        MonteCarloAgent agent = new MonteCarloAgent(threads, (long) (budgetMillis * 1_000_000), 0);
+        AgentRunner runner = new AgentRunner(levels, maxTicks, agent);
+        try {
+            System.out.printf("%d games per layout, %.1f ms per move on %d threads%n", games, budgetMillis, threads);
+            for (int level = 1; level <= layouts; level++) {
+                int wins = 0;
+                LongSummaryStatistics scores = new LongSummaryStatistics();
+                LongSummaryStatistics ticks = new LongSummaryStatistics();
+                long rollouts = agent.getRollouts();
+                for (long seed = 0; seed < games; seed++) {
+                    Game game = runner.newGame(level, seed);
+                    ticks.accept(runner.play(game));
+                    if (game.level != level)
+                        wins++;
+                    scores.accept(game.score);
+                }
+                System.out.printf("  Level %d: %.0f%% won (%d/%d), mean score %,.0f, mean ticks %,.0f, %,d rollouts%n",
+                        level, 100.0 * wins / games, wins, games, scores.getAverage(), ticks.getAverage(),
+                        agent.getRollouts() - rollouts);
+            }
+            System.out.printf("%,.0f rollouts per second per thread%n", agent.getRolloutsPerSecondPerThread());
+        } finally {
+            agent.shutdown();
+        }
+    }
+}
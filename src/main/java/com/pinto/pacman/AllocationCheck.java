@@ -0,0 +1,174 @@
+package com.pinto.pacman;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+/**
+ * AllocationCheck makes sure the game logic and the drawing of frames do not allocate once they are warmed up.
+ * It measures the bytes allocated by 10k ticks of level 1, by 1k loads of the stock levels and by drawing frames
+ * headless, counted by the {@link com.sun.management.ThreadMXBean} of the JVM, and exits with an error if any goes
+ * over its threshold: 16 KB for the 10k ticks, 1 KB per map load and 64 bytes per frame.
+ * A tick loading a map copies the compiled template of the level, so it is held to the threshold of a map load
+ * instead of the one of the ticks.
+ * It runs in the verify phase of the Maven build, or alone with
+ * {@code java -Djava.awt.headless=true -cp target/classes com.pinto.pacman.AllocationCheck}.
+ */
+public class AllocationCheck {
+    private static final int TILE_SIZE = 32;
+    private static final int TICKS = 10_000;
+    private static final int FRAMES = 1_000;
+    private static final int MAP_LOADS = 1_000;
+    // The loads and the frames are measured in a few rounds and the lowest is kept, so that the JIT compiling
+    // a method late on a busy machine does not fail the build, while an allocation made every time is in every round
+    private static final int ROUNDS = 5;
+    private static final long WARMUP_NANOS = 3_000_000_000L;
+    // A few small objects are allowed, such as the event recorded when Pac-Man dies
+    private static final long MAX_TICK_BYTES = 16 * 1024;
+    // A map load records an event and may grow the arrays of the ghosts, the template of the level is shared
+    private static final long MAX_MAP_LOAD_BYTES = 1024;
+    private static final long MAX_FRAME_BYTES = 64;
+
+    public static void main(String[] args) {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads)
+                || !threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("This JVM does not count the memory allocated by threads");
+            System.exit(2);
+            return;
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        boolean passed = checkTicks(threads);
+        passed &= checkMapLoads(threads);
+        passed &= checkFrames(threads, false);
+        passed &= checkFrames(threads, true);
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Measures the bytes allocated by 10k ticks of level 1, with Pac-Man turning in a random direction every few ticks.
+     * @param threads The bean counting the memory allocated by each thread
+     * @return True if the ticks allocated less than the threshold
+     */
+    private static boolean checkTicks(com.sun.management.ThreadMXBean threads) {
+        Game game = new Game(19 * TILE_SIZE, 21 * TILE_SIZE, TILE_SIZE, new Random(1));
+        Random input = new Random(7);
+        long end = System.nanoTime() + WARMUP_NANOS;
+        for (int i = 0; System.nanoTime() < end; i++) {
+            step(game, input, i);
+        }
+
+        long bytes = 0;
+        long mapBytes = 0;
+        int mapLoads = 0;
+        for (int i = 0; i < TICKS; i++) {
+            int level = game.level;
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            step(game, input, i);
+            allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+            if (game.level != level) {
+                mapBytes += allocated;
+                mapLoads++;
+            } else {
+                bytes += allocated;
+            }
+        }
+
+        boolean passed = bytes <= MAX_TICK_BYTES && mapBytes <= mapLoads * MAX_MAP_LOAD_BYTES;
+        System.out.printf("%-20s %,10d bytes per %,d ticks (max %,d), %,d bytes in %d map loads (max %,d each)%s%n",
+                "Ticks", bytes, TICKS, MAX_TICK_BYTES, mapBytes, mapLoads, MAX_MAP_LOAD_BYTES, passed ? "" : " FAILED");
+        return passed;
+    }
+
+    /**
+     * Measures the bytes allocated by loading the stock levels in turn, each load putting Pac-Man and the ghosts
+     * back at their start.
+     * @param threads The bean counting the memory allocated by each thread
+     * @return True if a load allocated less than the threshold on average, in the lowest round
+     */
+    private static boolean checkMapLoads(com.sun.management.ThreadMXBean threads) {
+        Game game = new Game(19 * TILE_SIZE, 21 * TILE_SIZE, TILE_SIZE, new Random(1));
+        long end = System.nanoTime() + WARMUP_NANOS;
+        for (int i = 0; System.nanoTime() < end; i++) {
+            loadMap(game, i);
+        }
+
+        long bytes = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < MAP_LOADS; i++) {
+                loadMap(game, i);
+            }
+            bytes = Math.min(bytes, (threads.getCurrentThreadAllocatedBytes() - allocated) / MAP_LOADS);
+        }
+
+        boolean passed = bytes <= MAX_MAP_LOAD_BYTES;
+        System.out.printf("%-20s %,10d bytes per load (max %,d)%s%n",
+                "Map loads", bytes, MAX_MAP_LOAD_BYTES, passed ? "" : " FAILED");
+        return passed;
+    }
+
+    /**
+     * Loads one of the stock levels, as when a level is cleared.
+     * @param game The game to load the level in
+     * @param i The number of the load, the levels are loaded in turn
+     */
+    private static void loadMap(Game game, int i) {
+        game.level = 1 + i % Level.getLevelCount();
+        game.loadMap();
+        game.resetPosition();
+    }
+
+    /**
+     * Runs a tick, turning Pac-Man in a random direction every few ticks.
+     * The game goes on when it is over, without loading the map again, so that every tick does real work.
+     * @param game The game to run
+     * @param input The random source of the simulated player
+     * @param i The number of the tick
+     */
+    private static void step(Game game, Random input, int i) {
+        char direction = Game.NO_INPUT;
+        if (i % 8 == 0)
+            direction = game.directions[input.nextInt(game.directions.length)];
+        if (game.gameOver) {
+            game.lives = 3;
+            game.gameOver = false;
+        }
+        game.step(direction);
+    }
+
+    /**
+     * Measures the bytes allocated by drawing frames of level 1 into an offscreen image.
+     * @param threads The bean counting the memory allocated by each thread
+     * @param paused True to draw the pause message over the view
+     * @return True if a frame allocated less than the threshold on average, in the lowest round
+     */
+    private static boolean checkFrames(com.sun.management.ThreadMXBean threads, boolean paused) {
+        PacMan panel = new PacMan(19 * TILE_SIZE, 21 * TILE_SIZE, TILE_SIZE);
+        panel.gameLoop.stop();
+        panel.awaitAssets();
+        panel.paused = paused;
+        BufferedImage image = new BufferedImage(19 * TILE_SIZE, 21 * TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+
+        long end = System.nanoTime() + WARMUP_NANOS;
+        while (System.nanoTime() < end) {
+            panel.draw(graphics);
+        }
+        long bytes = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long allocated = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < FRAMES; i++) {
+                panel.draw(graphics);
+            }
+            bytes = Math.min(bytes, (threads.getCurrentThreadAllocatedBytes() - allocated) / FRAMES);
+        }
+        graphics.dispose();
+
+        boolean passed = bytes <= MAX_FRAME_BYTES;
+        System.out.printf("%-20s %,10d bytes per frame (max %,d)%s%n",
+                paused ? "Frames, paused" : "Frames", bytes, MAX_FRAME_BYTES, passed ? "" : " FAILED");
+        return passed;
+    }
+}
@@ -0,0 +1,124 @@
+package com.pinto.pacman;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.LongStream;
+
+/**
+ * BatchRunner simulates many independent seeded games in parallel and aggregates their results.
+ * Every game has its own {@link Game} and {@link Random}, so games share nothing and scale with the cores.
+ * Pac-Man is driven by a random walk, seeded from the seed of the game.
+ */
+public class BatchRunner {
+    private static final int ROW_COUNT = 21;
+    private static final int COLUMN_COUNT = 19;
+    private static final int TILE_SIZE = 32;
+
+    private final int startLevel;
+    private final long maxTicks;
+
+    /**
+     * Constructor for the BatchRunner class.
+     * @param startLevel The level every game starts at
+     * @param maxTicks The maximum number of ticks of a game, games still running are stopped there
+     */
+    BatchRunner(int startLevel, long maxTicks) {
+        this.startLevel = startLevel;
+        this.maxTicks = maxTicks;
+    }
+
+    /**
+     * Runs a batch of games on a fork-join pool.
+     * @param firstSeed The seed of the first game, the following games use the next seeds
+     * @param games The number of games to run
+     * @param threads The number of threads of the pool
+     * @return the statistics of all the games
+     */
+    public BatchStatistics run(long firstSeed, int games, int threads) throws InterruptedException, ExecutionException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            return pool.submit(() -> LongStream.range(firstSeed, firstSeed + games)
+                    .parallel()
+                    .collect(BatchStatistics::new, this::runGame, BatchStatistics::merge)
+            ).get();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Runs one game until it is over or the maximum number of ticks is reached.
+     * @param statistics The statistics to record the game in
+     * @param seed The seed of the game
+     */
+    public void runGame(BatchStatistics statistics, long seed) {
+        Game game = new Game(COLUMN_COUNT * TILE_SIZE, ROW_COUNT * TILE_SIZE, TILE_SIZE, new Random(seed), startLevel);
+        Random player = new Random(~seed);
+
+        statistics.addLevelPlayed(game.level);
+
+        long levelStart = 0;
+        long tick = 0;
+        while (!game.gameOver && tick < maxTicks) {
+            char input = Game.NO_INPUT;
+            if (player.nextInt(8) == 0)
+                input = game.directions[player.nextInt(game.directions.length)];
+
+            int level = game.level;
+            int lives = game.lives;
+            game.step(input);
+            tick++;
+
+            if (game.lives < lives)
+                statistics.addDeath(level);
+            if (game.level != level) {
+                statistics.addLevelCleared(level, tick - levelStart);
+                statistics.addLevelPlayed(game.level);
+                levelStart = tick;
+            }
+        }
+
+        statistics.addGame(game.score, game.level - startLevel, tick);
+    }
+
+    /**
+     * Runs a batch of games and prints the statistics.
+     * Arguments: number of games, start level, maximum ticks per game and number of threads, all optional.
+     */
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int startLevel = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        long maxTicks = args.length > 2 ? Long.parseLong(args[2]) : 20_000;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+
+        BatchRunner runner = new BatchRunner(startLevel, maxTicks);
+
+        long start = System.nanoTime();
+        BatchStatistics statistics = runner.run(0, games, threads);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%,d games on %d threads in %.2f s: %,.0f games/s, %,.0f ticks/s%n",
+                statistics.getGames(), threads, seconds, statistics.getGames() / seconds, statistics.getTicks() / seconds);
+        System.out.printf("Score: min %,d, mean %,.1f, max %,d%n",
+                statistics.getScores().getMin(), statistics.getScores().getAverage(), statistics.getScores().getMax());
+
+        System.out.println("Score distribution:");
+        for (Map.Entry<Integer, Long> entry : statistics.getScoreDistribution().entrySet()) {
+            System.out.printf("  %,6d - %,6d: %,d%n", entry.getKey(), entry.getKey() + BatchStatistics.SCORE_BUCKET - 1, entry.getValue());
+        }
+
+        System.out.println("Levels cleared:");
+        for (Map.Entry<Integer, Long> entry : statistics.getLevelsCleared().entrySet()) {
+            System.out.printf("  %d: %,d%n", entry.getKey(), entry.getValue());
+        }
+
+        System.out.println("Per level:");
+        for (int level = startLevel; level <= statistics.getHighestLevel(); level++) {
+            System.out.printf("  Level %d: %.2f deaths per game, %,d clears, %.0f mean ticks to clear%n",
+                    level, statistics.getDeathsPerGame(level), statistics.getTicksToClear(level).getCount(),
+                    statistics.getTicksToClear(level).getAverage());
+        }
+    }
+}
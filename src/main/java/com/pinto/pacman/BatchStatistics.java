@@ -0,0 +1,156 @@
+package com.pinto.pacman;
+
+import java.util.Arrays;
+import java.util.LongSummaryStatistics;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * BatchStatistics aggregates the results of many simulated games.
+ * Instances are filled by one thread each and then merged, so they are not thread-safe.
+ */
+public class BatchStatistics {
+
+    /**
+     * Width of the buckets of the score distribution.
+     */
+    public static final int SCORE_BUCKET = 500;
+
+    private final LongSummaryStatistics scores = new LongSummaryStatistics();
+    private final TreeMap<Integer, Long> scoreDistribution = new TreeMap<>();
+    private final TreeMap<Integer, Long> levelsCleared = new TreeMap<>();
+    private long[] deathsPerLevel = new long[0];
+    private long[] gamesPerLevel = new long[0];
+    private LongSummaryStatistics[] ticksToClear = new LongSummaryStatistics[0];
+    private long ticks = 0;
+
+    /**
+     * Records the end of a game.
+     * @param score The final score of the game
+     * @param cleared The number of levels cleared during the game
+     * @param ticks The number of ticks the game lasted
+     */
+    public void addGame(int score, int cleared, long ticks) {
+        scores.accept(score);
+        scoreDistribution.merge(score / SCORE_BUCKET * SCORE_BUCKET, 1L, Long::sum);
+        levelsCleared.merge(cleared, 1L, Long::sum);
+        this.ticks += ticks;
+    }
+
+    /**
+     * Records that a game has reached a level.
+     * @param level The level reached
+     */
+    public void addLevelPlayed(int level) {
+        ensureLevel(level);
+        gamesPerLevel[level]++;
+    }
+
+    /**
+     * Records a death of Pac-Man.
+     * @param level The level at which Pac-Man died
+     */
+    public void addDeath(int level) {
+        ensureLevel(level);
+        deathsPerLevel[level]++;
+    }
+
+    /**
+     * Records that a level has been cleared.
+     * @param level The level that was cleared
+     * @param ticks The number of ticks it took to clear the level
+     */
+    public void addLevelCleared(int level, long ticks) {
+        ensureLevel(level);
+        ticksToClear[level].accept(ticks);
+    }
+
+    /**
+     * Grows the per level arrays so that they can hold a level.
+     * @param level The level that must fit in the arrays
+     */
+    private void ensureLevel(int level) {
+        if (level < deathsPerLevel.length)
+            return;
+
+        int length = level + 1;
+        int oldLength = deathsPerLevel.length;
+        deathsPerLevel = Arrays.copyOf(deathsPerLevel, length);
+        gamesPerLevel = Arrays.copyOf(gamesPerLevel, length);
+        ticksToClear = Arrays.copyOf(ticksToClear, length);
+        for (int i = oldLength; i < length; i++) {
+            ticksToClear[i] = new LongSummaryStatistics();
+        }
+    }
+
+    /**
+     * Merges the statistics of another batch into this one.
+     * @param other The statistics to merge
+     */
+    public void merge(BatchStatistics other) {
+        scores.combine(other.scores);
+        other.scoreDistribution.forEach((bucket, count) -> scoreDistribution.merge(bucket, count, Long::sum));
+        other.levelsCleared.forEach((cleared, count) -> levelsCleared.merge(cleared, count, Long::sum));
+        ensureLevel(other.deathsPerLevel.length - 1);
+        for (int level = 0; level < other.deathsPerLevel.length; level++) {
+            deathsPerLevel[level] += other.deathsPerLevel[level];
+            gamesPerLevel[level] += other.gamesPerLevel[level];
+            ticksToClear[level].combine(other.ticksToClear[level]);
+        }
+        ticks += other.ticks;
+    }
+
+    public long getGames() {
+        return scores.getCount();
+    }
+
+    public long getTicks() {
+        return ticks;
+    }
+
+    public LongSummaryStatistics getScores() {
+        return scores;
+    }
+
+    public Map<Integer, Long> getScoreDistribution() {
+        return scoreDistribution;
+    }
+
+    public Map<Integer, Long> getLevelsCleared() {
+        return levelsCleared;
+    }
+
+    /**
+     * Get the average number of deaths in a level, over the games that reached it.
+     * @param level The level
+     * @return the average number of deaths, or 0 if no game reached the level
+     */
+    public double getDeathsPerGame(int level) {
+        if (level >= gamesPerLevel.length || gamesPerLevel[level] == 0)
+            return 0;
+        return (double) deathsPerLevel[level] / gamesPerLevel[level];
+    }
+
+    /**
+     * Get the statistics of the number of ticks it took to clear a level.
+     * @param level The level
+     * @return the statistics, empty if the level was never cleared
+     */
+    public LongSummaryStatistics getTicksToClear(int level) {
+        if (level >= ticksToClear.length)
+            return new LongSummaryStatistics();
+        return ticksToClear[level];
+    }
+
+    /**
+     * Get the highest level reached by any game.
+     * @return the highest level reached, or 0 if no game was recorded
+     */
+    public int getHighestLevel() {
+        for (int level = gamesPerLevel.length - 1; level > 0; level--) {
+            if (gamesPerLevel[level] > 0)
+                return level;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,24 @@
+package com.pinto.pacman;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * DeathEvent is recorded by Java Flight Recorder when a ghost catches Pac-Man.
+ */
+@Name("com.pinto.pacman.Death")
+@Label("Death")
+@Category("Pac-Man")
+@Description("Pac-Man lost a life")
+class DeathEvent extends jdk.jfr.Event {
+    @Label("Level")
+    int level;
+
+    @Label("Lives Left")
+    int lives;
+
+    @Label("Score")
+    int score;
+}
@@ -0,0 +1,101 @@
+package com.pinto.pacman;
+
+import java.util.Arrays;
+
+/**
+ * DistanceField holds the walking distance, in tiles, from every tile of a {@link NavGraph} to a target tile.
+ * It is computed with a breadth-first search, only again when the target changes, so a block heading to the target
+ * just has to pick the neighbor with the smallest distance.
+ * On a graph compiled with its table of distances, the distances are read from the table instead.
+ */
+public class DistanceField {
+
+    /**
+     * Distance of the tiles from which the target cannot be reached.
+     */
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private NavGraph graph;
+    private final int[] distances;
+    private final int[] queue;
+    private int target = -1;
+
+    /**
+     * Constructor for the DistanceField class.
+     * @param graph The graph of the level
+     */
+    DistanceField(NavGraph graph) {
+        this.graph = graph;
+        this.distances = new int[graph.getTileCount()];
+        this.queue = new int[graph.getTileCount()];
+        Arrays.fill(distances, UNREACHABLE);
+    }
+
+    /**
+     * Moves the field to the graph of another level of the same size, keeping its arrays.
+     * The distances are computed again on the next update.
+     * @param graph The graph of the level
+     * @throws IllegalArgumentException if the graph does not have as many tiles
+     */
+    public void setGraph(NavGraph graph) {
+        if (graph.getTileCount() != distances.length)
+            throw new IllegalArgumentException("Graph of " + graph.getTileCount() + " tiles for a field of " + distances.length);
+        this.graph = graph;
+        this.target = -1;
+        Arrays.fill(distances, UNREACHABLE);
+    }
+
+    /**
+     * Moves the target, computing the distances again if it has changed.
+     * @param target The index of the target tile
+     * @return True if the distances were computed again, false if the target did not change
+     */
+    public boolean update(int target) {
+        if (target == this.target)
+            return false;
+
+        // The distances of a compiled level are read from its table
+        this.target = target;
+        if (graph.hasDistances())
+            return true;
+        Arrays.fill(distances, UNREACHABLE);
+        if (target < 0 || !graph.isWalkable(target))
+            return true;
+
+        int head = 0;
+        int tail = 0;
+        distances[target] = 0;
+        queue[tail++] = target;
+        while (head < tail) {
+            int tile = queue[head++];
+            int next = distances[tile] + 1;
+            for (int direction = 0; direction < 4; direction++) {
+                int neighbor = graph.neighbor(tile, direction);
+                if (neighbor >= 0 && distances[neighbor] == UNREACHABLE) {
+                    distances[neighbor] = next;
+                    queue[tail++] = neighbor;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the distance from a tile to the target.
+     * @param tile The index of the tile
+     * @return the number of tiles to walk, or UNREACHABLE
+     */
+    public int distance(int tile) {
+        if (graph.hasDistances())
+            return target >= 0 ? graph.distance(target, tile) : UNREACHABLE;
+        return distances[tile];
+    }
+
+    public int getTarget() {
+        return target;
+    }
+
+    public NavGraph getGraph() {
+        return graph;
+    }
+}
@@ -0,0 +1,420 @@
+package com.pinto.pacman;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * FoodGrid stores the dots, cherries and power food of a level as one bit per tile.
+ * Eating only looks at the tiles under Pac-Man, and the remaining dots are counted as they are eaten.
+ * Tiles are indexed by {@code row * columns + column}.
+ */
+public class FoodGrid {
+
+    /**
+     * Size of a dot, in pixels. A dot is centered in its tile.
+     */
+    public static final int DOT_SIZE = 4;
+
+    // Food on a tile
+    public static final int EMPTY = 0;
+    public static final int DOT = 1;
+    public static final int CHERRY = 2;
+    public static final int POWER_FOOD = 3;
+
+    private final int rows;
+    private final int columns;
+    private final int tileSize;
+
+    private final BitSet dots;
+    private final BitSet cherries;
+    private final BitSet powerFoods;
+    private int dotCount = 0;
+    private int cherryCount = 0;
+
+    // Tiles changed since the log was last cleared, such as to send them to the players of a network game
+    private int[] changes = new int[8];
+    private int changeCount = 0;
+
+    /**
+     * Constructor for the FoodGrid class.
+     * @param rows Number of rows of the level
+     * @param columns Number of columns of the level
+     * @param tileSize Size of each tile
+     */
+    FoodGrid(int rows, int columns, int tileSize) {
+        this.rows = rows;
+        this.columns = columns;
+        this.tileSize = tileSize;
+        this.dots = new BitSet(rows * columns);
+        this.cherries = new BitSet(rows * columns);
+        this.powerFoods = new BitSet(rows * columns);
+    }
+
+    /**
+     * Puts a dot on a tile.
+     * @param row The row of the tile
+     * @param column The column of the tile
+     */
+    public void addDot(int row, int column) {
+        int index = row * columns + column;
+        if (!dots.get(index)) {
+            dots.set(index);
+            dotCount++;
+        }
+    }
+
+    /**
+     * Puts a cherry on a tile.
+     * @param row The row of the tile
+     * @param column The column of the tile
+     */
+    public void addCherry(int row, int column) {
+        int index = row * columns + column;
+        if (!cherries.get(index)) {
+            cherries.set(index);
+            cherryCount++;
+        }
+    }
+
+    /**
+     * Puts a power food on a tile.
+     * @param row The row of the tile
+     * @param column The column of the tile
+     */
+    public void addPowerFood(int row, int column) {
+        powerFoods.set(row * columns + column);
+    }
+
+    /**
+     * Replaces the food with the food of another grid of the same size, such as the food a level starts with.
+     * It copies the bits without allocating, and empties the log of changed tiles.
+     * @param other The grid to copy
+     */
+    public void copyFrom(FoodGrid other) {
+        dots.clear();
+        dots.or(other.dots);
+        cherries.clear();
+        cherries.or(other.cherries);
+        powerFoods.clear();
+        powerFoods.or(other.powerFoods);
+        dotCount = other.dotCount;
+        cherryCount = other.cherryCount;
+        changeCount = 0;
+    }
+
+    /**
+     * Eats the first dot overlapped by a rectangle.
+     * @param x The x-coordinate of the rectangle
+     * @param y The y-coordinate of the rectangle
+     * @param width Width of the rectangle
+     * @param height Height of the rectangle
+     * @return True if a dot was eaten, false otherwise
+     */
+    public boolean eatDot(int x, int y, int width, int height) {
+        int offset = getDotOffset();
+        int firstColumn = Math.max(0, Math.floorDiv(x, tileSize));
+        int lastColumn = Math.min(columns - 1, Math.floorDiv(x + width - 1, tileSize));
+        int firstRow = Math.max(0, Math.floorDiv(y, tileSize));
+        int lastRow = Math.min(rows - 1, Math.floorDiv(y + height - 1, tileSize));
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                int index = r * columns + c;
+                if (!dots.get(index))
+                    continue;
+
+                // The dot is smaller than its tile, so the rectangle must reach the dot itself
+                int dotX = c * tileSize + offset;
+                int dotY = r * tileSize + offset;
+                if (x < dotX + DOT_SIZE && x + width > dotX && y < dotY + DOT_SIZE && y + height > dotY) {
+                    dots.clear(index);
+                    dotCount--;
+                    logChange(index);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Eats the first cherry overlapped by a rectangle.
+     * @param x The x-coordinate of the rectangle
+     * @param y The y-coordinate of the rectangle
+     * @param width Width of the rectangle
+     * @param height Height of the rectangle
+     * @return True if a cherry was eaten, false otherwise
+     */
+    public boolean eatCherry(int x, int y, int width, int height) {
+        if (cherryCount == 0)
+            return false;
+        if (eatTile(cherries, x, y, width, height)) {
+            cherryCount--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Eats the first power food overlapped by a rectangle.
+     * @param x The x-coordinate of the rectangle
+     * @param y The y-coordinate of the rectangle
+     * @param width Width of the rectangle
+     * @param height Height of the rectangle
+     * @return True if a power food was eaten, false otherwise
+     */
+    public boolean eatPowerFood(int x, int y, int width, int height) {
+        return eatTile(powerFoods, x, y, width, height);
+    }
+
+    /**
+     * Clears the first set tile of a layer overlapped by a rectangle. Cherries and power food fill their tile.
+     * @param layer The bits of the layer
+     * @param x The x-coordinate of the rectangle
+     * @param y The y-coordinate of the rectangle
+     * @param width Width of the rectangle
+     * @param height Height of the rectangle
+     * @return True if a tile was cleared, false otherwise
+     */
+    private boolean eatTile(BitSet layer, int x, int y, int width, int height) {
+        int firstColumn = Math.max(0, Math.floorDiv(x, tileSize));
+        int lastColumn = Math.min(columns - 1, Math.floorDiv(x + width - 1, tileSize));
+        int firstRow = Math.max(0, Math.floorDiv(y, tileSize));
+        int lastRow = Math.min(rows - 1, Math.floorDiv(y + height - 1, tileSize));
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                int index = r * columns + c;
+                if (layer.get(index)) {
+                    layer.clear(index);
+                    logChange(index);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Puts a cherry on a tile during the game.
+     * @param index The index of the tile
+     */
+    public void spawnCherry(int index) {
+        if (!cherries.get(index)) {
+            cherries.set(index);
+            cherryCount++;
+            logChange(index);
+        }
+    }
+
+    /**
+     * Removes a cherry that was not eaten in time.
+     * @param index The index of the tile
+     */
+    public void removeCherry(int index) {
+        if (cherries.get(index)) {
+            cherries.clear(index);
+            cherryCount--;
+            logChange(index);
+        }
+    }
+
+    /**
+     * Get the food on a tile.
+     * @param index The index of the tile
+     * @return EMPTY, DOT, CHERRY or POWER_FOOD
+     */
+    public int getTile(int index) {
+        if (dots.get(index))
+            return DOT;
+        if (cherries.get(index))
+            return CHERRY;
+        return powerFoods.get(index) ? POWER_FOOD : EMPTY;
+    }
+
+    /**
+     * Sets the food on a tile, such as a tile changed in a game played elsewhere.
+     * @param index The index of the tile
+     * @param food EMPTY, DOT, CHERRY or POWER_FOOD
+     */
+    public void setTile(int index, int food) {
+        if (dots.get(index))
+            dotCount--;
+        if (cherries.get(index))
+            cherryCount--;
+        dots.set(index, food == DOT);
+        cherries.set(index, food == CHERRY);
+        powerFoods.set(index, food == POWER_FOOD);
+        if (food == DOT)
+            dotCount++;
+        if (food == CHERRY)
+            cherryCount++;
+    }
+
+    /**
+     * Adds a tile to the log of changed tiles. The log grows with the tiles changed in a tick, a few at most.
+     * @param index The index of the tile
+     */
+    private void logChange(int index) {
+        if (changeCount == changes.length)
+            changes = Arrays.copyOf(changes, changeCount * 2);
+        changes[changeCount++] = index;
+    }
+
+    /**
+     * Empties the log of changed tiles.
+     */
+    public void clearChanges() {
+        changeCount = 0;
+    }
+
+    /**
+     * Get the number of tiles eaten, or cherries come and gone, since the log was last cleared.
+     * @return the number of changed tiles
+     */
+    public int getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Get a tile of the log of changed tiles, in the order they changed.
+     * @param i The position in the log
+     * @return the index of the tile
+     */
+    public int getChangedTile(int i) {
+        return changes[i];
+    }
+
+    /**
+     * Get the next tile holding a dot, to iterate over the dots only.
+     * @param fromIndex The first tile index to look at
+     * @return the index of the tile, or -1 if there is no dot from there
+     */
+    public int nextDot(int fromIndex) {
+        return dots.nextSetBit(fromIndex);
+    }
+
+    /**
+     * Get the next tile holding a cherry.
+     * @param fromIndex The first tile index to look at
+     * @return the index of the tile, or -1 if there is no cherry from there
+     */
+    public int nextCherry(int fromIndex) {
+        return cherries.nextSetBit(fromIndex);
+    }
+
+    /**
+     * Get the next tile holding a power food.
+     * @param fromIndex The first tile index to look at
+     * @return the index of the tile, or -1 if there is no power food from there
+     */
+    public int nextPowerFood(int fromIndex) {
+        return powerFoods.nextSetBit(fromIndex);
+    }
+
+    /**
+     * Get the number of bytes written by {@link #writeTo}.
+     * @return the size of the food in a snapshot
+     */
+    public int getSnapshotSize() {
+        return 8 + 3 * 8 * getWordCount();
+    }
+
+    /**
+     * Writes the food to a snapshot, as three bitmaps of one bit per tile.
+     * @param buffer The buffer to write to
+     */
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(dotCount);
+        buffer.putInt(cherryCount);
+        writeLayer(dots, buffer);
+        writeLayer(cherries, buffer);
+        writeLayer(powerFoods, buffer);
+    }
+
+    /**
+     * Reads the food from a snapshot written by {@link #writeTo} for a level of the same size.
+     * @param buffer The buffer to read from
+     */
+    public void readFrom(ByteBuffer buffer) {
+        dotCount = buffer.getInt();
+        cherryCount = buffer.getInt();
+        readLayer(dots, buffer);
+        readLayer(cherries, buffer);
+        readLayer(powerFoods, buffer);
+    }
+
+    /**
+     * Writes the bits of a layer as 64-bit words, without copying the layer.
+     * @param layer The bits of the layer
+     * @param buffer The buffer to write to
+     */
+    private void writeLayer(BitSet layer, ByteBuffer buffer) {
+        int wordCount = getWordCount();
+        int wordIndex = 0;
+        long word = 0;
+        for (int bit = layer.nextSetBit(0); bit >= 0; bit = layer.nextSetBit(bit + 1)) {
+            // Write the words before the one holding the bit
+            while (wordIndex < bit >>> 6) {
+                buffer.putLong(word);
+                word = 0;
+                wordIndex++;
+            }
+            word |= 1L << bit;
+        }
+        for (; wordIndex < wordCount; wordIndex++) {
+            buffer.putLong(word);
+            word = 0;
+        }
+    }
+
+    /**
+     * Reads the bits of a layer written by {@link #writeLayer}.
+     * @param layer The bits of the layer
+     * @param buffer The buffer to read from
+     */
+    private void readLayer(BitSet layer, ByteBuffer buffer) {
+        layer.clear();
+        int wordCount = getWordCount();
+        for (int wordIndex = 0; wordIndex < wordCount; wordIndex++) {
+            long word = buffer.getLong();
+            while (word != 0) {
+                layer.set(wordIndex << 6 | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+    }
+
+    /**
+     * Get the number of 64-bit words of a layer.
+     * @return the number of words
+     */
+    private int getWordCount() {
+        return (rows * columns + 63) >>> 6;
+    }
+
+    /**
+     * Get the offset of a dot from the corner of its tile.
+     * @return the offset, in pixels
+     */
+    public int getDotOffset() {
+        return (tileSize - DOT_SIZE) / 2;
+    }
+
+    public int getDotCount() {
+        return dotCount;
+    }
+
+    public int getCherryCount() {
+        return cherryCount;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+}
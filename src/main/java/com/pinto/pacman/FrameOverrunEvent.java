@@ -0,0 +1,27 @@
+package com.pinto.pacman;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * FrameOverrunEvent is recorded by Java Flight Recorder when a frame of the game loop takes longer than its budget.
+ */
+@Name("com.pinto.pacman.FrameOverrun")
+@Label("Frame Overrun")
+@Category("Pac-Man")
+@Description("A frame, with its ticks and its rendering, took longer than the time it had")
+class FrameOverrunEvent extends jdk.jfr.Event {
+    @Label("Frame Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long frameTime;
+
+    @Label("Budget")
+    @Timespan(Timespan.NANOSECONDS)
+    long budget;
+
+    @Label("Ticks")
+    int ticks;
+}
@@ -0,0 +1,82 @@
+package com.pinto.pacman;
+
+import java.util.Arrays;
+
+/**
+ * FrameStats keeps the last values of a repeated measure, such as the durations of ticks or frames,
+ * and computes their percentiles.
+ * Recording is cheap and allocation-free, computing a percentile copies the samples into a scratch array and sorts them.
+ */
+public class FrameStats {
+    private final long[] samples;
+    private final long[] sorted;
+    private int next = 0;
+    private int count = 0;
+
+    /**
+     * Constructor for the FrameStats class.
+     * @param capacity Number of durations kept, older ones are overwritten
+     */
+    FrameStats(int capacity) {
+        this.samples = new long[capacity];
+        this.sorted = new long[capacity];
+    }
+
+    /**
+     * Records a duration.
+     * @param nanos The duration, in nanoseconds
+     */
+    public synchronized void record(long nanos) {
+        samples[next] = nanos;
+        next = (next + 1) % samples.length;
+        if (count < samples.length)
+            count++;
+    }
+
+    /**
+     * Get a percentile of the recorded durations.
+     * @param percentile The percentile, between 0 and 100
+     * @return the duration at that percentile in nanoseconds, or 0 if nothing was recorded
+     */
+    public synchronized long percentile(double percentile) {
+        if (count == 0)
+            return 0;
+
+        System.arraycopy(samples, 0, sorted, 0, count);
+        Arrays.sort(sorted, 0, count);
+        int index = (int) Math.ceil(percentile / 100 * count) - 1;
+        return sorted[Math.max(0, Math.min(count - 1, index))];
+    }
+
+    /**
+     * Get the mean of the recorded values.
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public synchronized double mean() {
+        if (count == 0)
+            return 0;
+
+        long sum = 0;
+        for (int i = 0; i < count; i++) {
+            sum += samples[i];
+        }
+        return (double) sum / count;
+    }
+
+    /**
+     * Get the number of durations currently kept.
+     * @return the number of samples
+     */
+    public synchronized int getCount() {
+        return count;
+    }
+
+    /**
+     * Describes the median, 99th percentile and maximum of the durations.
+     * @return the summary, in milliseconds
+     */
+    public String summary() {
+        return String.format("p50 %.2f ms, p99 %.2f ms, max %.2f ms",
+                percentile(50) / 1e6, percentile(99) / 1e6, percentile(100) / 1e6);
+    }
+}
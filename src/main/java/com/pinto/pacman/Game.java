@@ -0,0 +1,1356 @@
+package com.pinto.pacman;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Game holds the whole state and rules of a game of Pac-Man.
+ * It does not depend on Swing or AWT, so it can be stepped as fast as needed without a display.
+ */
+public class Game {
+
+    /**
+     * Block class represents a block in the game, such as Pacman. Walls are kept in a {@link WallGrid} and ghosts in a {@link GhostStore}.
+     */
+    public class Block {
+        int x;
+        int y;
+        final int width;
+        final int height;
+        Sprite sprite;
+
+        boolean isScared = false;
+
+        final int startX;
+        final int startY;
+
+        // Position before the last tick, used to interpolate the rendering between two ticks
+        int previousX;
+        int previousY;
+
+        private final int VELOCITY;
+
+        char direction = 'U'; // U = Up, D = Down, L = Left, R = Right
+        int velocityX = 0;
+        int velocityY = 0;
+
+
+        /**
+         * Constructor for the Block class.
+         * @param sprite Sprite to be used for the block
+         * @param x The x-coordinate of the block
+         * @param y The y-coordinate of the block
+         * @param width Width of the block
+         * @param height Height of the block
+         */
+        Block(Sprite sprite, int x, int y, int width, int height) {
+            this.sprite = sprite;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+
+            this.VELOCITY = width / 4 * DEFAULT_TICKS_PER_SECOND / TICKS_PER_SECOND;
+
+            this.startX = x;
+            this.startY = y;
+            this.previousX = x;
+            this.previousY = y;
+        }
+
+        /**
+         * Updates the direction in which the block is moving, if there is no wall right in front of it.
+         * The block moves in its new direction with the next move.
+         * @param direction The direction in which the block is moving
+         */
+        public void updateDirection(char direction) {
+            char prevDirection = this.direction;
+            this.direction = direction;
+            updateVelocity();
+
+            // The block only turns if it can move at least a little in the new direction
+            if (wallGrid.sweepX(this.x, this.y, this.width, this.height, this.velocityX) == 0
+                    && wallGrid.sweepY(this.x, this.y, this.width, this.height, this.velocityY) == 0) {
+                this.direction = prevDirection;
+                updateVelocity();
+            }
+        }
+
+        /**
+         * Moves the block by its velocity, stopping at the first wall on its way.
+         * @return True if the block moved, false if a wall was right in front of it
+         */
+        boolean advance() {
+            if (this.velocityX != 0) {
+                int distance = wallGrid.sweepX(this.x, this.y, this.width, this.height, this.velocityX);
+                this.x += distance;
+                return distance != 0;
+            }
+            int distance = wallGrid.sweepY(this.x, this.y, this.width, this.height, this.velocityY);
+            this.y += distance;
+            return distance != 0;
+        }
+
+        /**
+         * Updates the velocity of the block based on its direction.
+         */
+        private void updateVelocity() {
+            switch (this.direction) {
+                case 'U' -> {
+                    this.velocityX = 0;
+                    this.velocityY = -this.VELOCITY;
+                }
+                case 'D' -> {
+                    this.velocityX = 0;
+                    this.velocityY = this.VELOCITY;
+                }
+                case 'L' -> {
+                    this.velocityX = -this.VELOCITY;
+                    this.velocityY = 0;
+                }
+                case 'R' -> {
+                    this.velocityX = this.VELOCITY;
+                    this.velocityY = 0;
+                }
+            }
+        }
+
+        /**
+         * Turns the block without moving it, when the way is known to be free.
+         * @param direction The direction in which the block is moving
+         */
+        void turn(char direction) {
+            this.direction = direction;
+            updateVelocity();
+        }
+
+        /**
+         * Remembers the current position as the position before the tick.
+         */
+        void savePosition() {
+            this.previousX = x;
+            this.previousY = y;
+        }
+
+        /**
+         * Resets the position of the block to its starting position.
+         */
+        public void reset() {
+            this.x = startX;
+            this.y = startY;
+        }
+    }
+
+
+
+    /**
+     * Input meaning that the player did not ask for a new direction during the tick.
+     */
+    public static final char NO_INPUT = 0;
+
+    /**
+     * Number of ticks per second the speeds of the game were designed for.
+     */
+    public static final int DEFAULT_TICKS_PER_SECOND = 20;
+
+    final int ROW_COUNT;
+    final int COLUMN_COUNT;
+    final int TILE_SIZE;
+    final int BOARD_WIDTH;
+    final int BOARD_HEIGHT;
+    final int TICKS_PER_SECOND;
+
+    // Levels loaded from files, null to play the levels of the Level class
+    final LevelData[] levels;
+    int level = 1;
+
+    // The walls and the paths of the ghosts are shared with the other games on the level, they must not be modified
+    WallGrid wallGrid;
+    FoodGrid food;
+    // Ghosts are kept in the order of the map, so that a game plays the same way every time for a given seed
+    GhostStore ghosts;
+    // Size of the cells of the ghost grid, in tiles
+    private static final int GHOST_GRID_CELL_TILES = 2;
+    // Ghosts bucketed by position, to find the ones near Pac-Man or in view without looking at all of them
+    SpatialGrid ghostGrid;
+    // Ghosts found near Pac-Man by the last collision check
+    private int[] nearbyGhosts = new int[0];
+    // Ghosts met by the last collision check, each as the time they met in the high bits and the ghost in the low bits
+    private long[] ghostContacts = new long[0];
+    // Number of parts of a tick the time two blocks meet is rounded to
+    private static final long MEETING_TIME_UNIT = 1 << 24;
+    // Ghosts are moved in parallel chunks when there are at least this many of them
+    private static final int PARALLEL_GHOSTS = 4096;
+    private static final int GHOST_CHUNK = 1024;
+    // Moves large numbers of ghosts on several threads, the result is the same as on one thread
+    boolean parallelGhosts = true;
+    private final int GHOST_VELOCITY;
+    private static final Sprite[] SPRITES = Sprite.values();
+    // Bytes of a snapshot before the ghosts, and for each ghost
+    private static final int SNAPSHOT_HEADER_SIZE = 6 * 4 + 1 + 2 * 4 + 2 + 4;
+    private static final int SNAPSHOT_GHOST_SIZE = 2 * 4 + 1 + 8;
+    // Timings and counters of the ticks, null when nobody reads them
+    TickMetrics metrics;
+    // Records the level loads and deaths for Java Flight Recorder, copies searched by an agent do not
+    boolean recordEvents = true;
+    // Number of maps loaded, a new map cannot be described by a difference with the previous state
+    int mapLoads = 0;
+    Block pacman;
+    // Direction asked by the player that Pac-Man has not taken yet, taken as soon as the way is free
+    char bufferedDirection = NO_INPUT;
+
+    // Distances to Pac-Man and to the scatter corner of each ghost, ghosts follow them to find their way
+    NavGraph navGraph;
+    DistanceField pacmanField;
+    EnumMap<Sprite, DistanceField> scatterFields;
+
+    // Alternating scatter and chase durations in seconds, the ghosts chase for good afterward
+    private static final int[] GHOST_MODE_SCHEDULE = {7, 20, 7, 20, 5};
+    // Distance in tiles under which the orange ghost gives up the chase
+    private static final int ORANGE_GHOST_SHYNESS = 8;
+    // Tick the positions were last reset at, the ghosts follow their schedule from there
+    int modeStartTick = 0;
+
+    // Ticks played since the game started
+    int tick = 0;
+    // Events waiting for their tick: the decisions of the ghosts, their respawns, the end of the scare and the cherries
+    final TimerWheel timers = new TimerWheel();
+    // Kinds of events, the events due on the same tick happen in this order
+    private static final int SCARE_END = 0;
+    private static final int CHERRY_DESPAWN = 1;
+    private static final int CHERRY_SPAWN = 2;
+    private static final int GHOST_RESPAWN = 3;
+    private static final int GHOST_DECISION = 4;
+    // An event is its kind in the high bits and the ghost or the tile it is about in the low bits
+    private static final int EVENT_KIND_SHIFT = 28;
+    private static final int EVENT_TARGET_MASK = (1 << EVENT_KIND_SHIFT) - 1;
+    // Timers of each ghost and of the end of the scare, -1 when there is none
+    private int[] decisionTimers = new int[0];
+    private int[] respawnTimers = new int[0];
+    private int scareTimer = -1;
+    // Timers written in snapshots, sorted, each as its tick in the high bits and its event in the low bits
+    long[] savedTimers = new long[0];
+
+    final char[] directions = {'U', 'D', 'L', 'R'};
+    final Random random;
+
+    int highScore = 0;
+    int score = 0;
+    int lives = 3;
+    final int GHOST_SCARED_DURATION = 10_000; // Duration for which ghosts are scared, in milliseconds
+    // Time an eaten ghost waits at its start before leaving again, in milliseconds
+    private static final int GHOST_RESPAWN_DELAY = 3_000;
+    // Time before the first cherry of a level shows up, between two cherries, and that a cherry stays, in milliseconds
+    private static final int CHERRY_FIRST_SPAWN = 5_000;
+    private static final int CHERRY_SPAWN_INTERVAL = 15_000;
+    private static final int CHERRY_DURATION = 10_000;
+    boolean ghostsScared = false;
+    boolean gameOver = false;
+
+    /**
+     * Constructor for the Game class.
+     * @param boardWidth Width of the board
+     * @param boardHeight Height of the board
+     * @param tileSize Size of each tile
+     */
+    Game(int boardWidth, int boardHeight, int tileSize) {
+        this(boardWidth, boardHeight, tileSize, new Random());
+    }
+
+    /**
+     * Constructor for the Game class.
+     * @param boardWidth Width of the board
+     * @param boardHeight Height of the board
+     * @param tileSize Size of each tile
+     * @param random Random source used for the ghosts and the cherries
+     */
+    Game(int boardWidth, int boardHeight, int tileSize, Random random) {
+        this(boardWidth, boardHeight, tileSize, random, 1);
+    }
+
+    /**
+     * Constructor for the Game class.
+     * @param boardWidth Width of the board
+     * @param boardHeight Height of the board
+     * @param tileSize Size of each tile
+     * @param random Random source used for the ghosts and the cherries
+     * @param level The level to start the game at
+     */
+    Game(int boardWidth, int boardHeight, int tileSize, Random random, int level) {
+        this(boardWidth, boardHeight, tileSize, random, level, DEFAULT_TICKS_PER_SECOND);
+    }
+
+    /**
+     * Constructor for the Game class.
+     * Blocks move a whole number of pixels per tick that must divide the tile size, so only some tick rates
+     * are supported, such as 20, 40, 80 or 160 for tiles of 32 pixels.
+     * @param boardWidth Width of the board
+     * @param boardHeight Height of the board
+     * @param tileSize Size of each tile
+     * @param random Random source used for the ghosts and the cherries
+     * @param level The level to start the game at
+     * @param ticksPerSecond Number of ticks per second of game time
+     */
+    Game(int boardWidth, int boardHeight, int tileSize, Random random, int level, int ticksPerSecond) {
+        this(null, boardWidth, boardHeight, tileSize, random, level, ticksPerSecond);
+    }
+
+    /**
+     * Constructor for the Game class, with levels loaded from files.
+     * The board is as large as the largest level, and the game goes through the levels in turn.
+     * @param levels The levels of the game
+     * @param tileSize Size of each tile
+     * @param random Random source used for the ghosts and the cherries
+     * @param level The level to start the game at
+     * @param ticksPerSecond Number of ticks per second of game time
+     */
+    Game(LevelData[] levels, int tileSize, Random random, int level, int ticksPerSecond) {
+        this(levels, Arrays.stream(levels).mapToInt(LevelData::getColumns).max().orElseThrow() * tileSize,
+                Arrays.stream(levels).mapToInt(LevelData::getRows).max().orElseThrow() * tileSize,
+                tileSize, random, level, ticksPerSecond);
+    }
+
+    /**
+     * Constructor for the Game class.
+     * @param levels The levels of the game, or null for the levels of the Level class
+     * @param boardWidth Width of the board
+     * @param boardHeight Height of the board
+     * @param tileSize Size of each tile
+     * @param random Random source used for the ghosts and the cherries
+     * @param level The level to start the game at
+     * @param ticksPerSecond Number of ticks per second of game time
+     */
+    private Game(LevelData[] levels, int boardWidth, int boardHeight, int tileSize, Random random, int level, int ticksPerSecond) {
+        checkTickRate(tileSize, ticksPerSecond);
+
+        this.TICKS_PER_SECOND = ticksPerSecond;
+        this.levels = levels;
+        this.level = level;
+        this.BOARD_WIDTH = boardWidth;
+        this.BOARD_HEIGHT = boardHeight;
+        this.TILE_SIZE = tileSize;
+        this.ROW_COUNT = boardHeight / tileSize;
+        this.COLUMN_COUNT = boardWidth / tileSize;
+        this.GHOST_VELOCITY = tileSize / 4 * DEFAULT_TICKS_PER_SECOND / ticksPerSecond;
+        this.random = random;
+
+        // Load the map
+        loadMap();
+
+        // Making the ghosts move in random directions
+        for (int ghost = 0; ghost < ghosts.count; ghost++) {
+            updateGhostDirection(ghost, ghosts.nextRandom(ghost, directions.length));
+        }
+        updateGhostGrid();
+        scheduleDecisions();
+    }
+
+    /**
+     * Checks that the blocks move by whole pixels and stop exactly on the tiles at a tick rate.
+     * @param tileSize Size of each tile
+     * @param ticksPerSecond Number of ticks per second of game time
+     * @throws IllegalArgumentException if the tick rate is not supported
+     */
+    static void checkTickRate(int tileSize, int ticksPerSecond) {
+        int pixelsPerSecond = tileSize / 4 * DEFAULT_TICKS_PER_SECOND;
+        if (ticksPerSecond <= 0 || pixelsPerSecond % ticksPerSecond != 0
+                || pixelsPerSecond < ticksPerSecond || tileSize % (pixelsPerSecond / ticksPerSecond) != 0)
+            throw new IllegalArgumentException("Unsupported tick rate for a tile size of " + tileSize + ": " + ticksPerSecond);
+    }
+
+    /**
+     * Loads the map of the current level.
+     */
+    public void loadMap() {
+        if (levels != null)
+            loadMap(levels[Math.floorMod(level - 1, levels.length)]);
+        else
+            loadMap(Level.getLevelData(level));
+    }
+
+    /**
+     * Loads the map from the tileMap array.
+     * @param tileMap The layout of the level, one String per row
+     */
+    public void loadMap(String[] tileMap) {
+        loadMap(LevelData.of(tileMap));
+    }
+
+    /**
+     * Loads the map from the tiles of a level. The parts of the level outside the board are ignored.
+     * The level is compiled once into a {@link LevelTemplate} shared with the next loads of the level, loading it
+     * only resets the food, the ghosts and the timers of the game from the template, reusing their arrays.
+     * @param levelData The tiles of the level
+     */
+    public void loadMap(LevelData levelData) {
+        LevelLoadEvent event = new LevelLoadEvent();
+        event.begin();
+        mapLoads++;
+
+        LevelTemplate template = levelData.getTemplate(ROW_COUNT, COLUMN_COUNT, TILE_SIZE);
+        wallGrid = template.getWalls();
+        navGraph = template.getNavGraph();
+        scatterFields = template.getScatterFields();
+        if (pacmanField == null || pacmanField.getGraph().getTileCount() != navGraph.getTileCount())
+            pacmanField = new DistanceField(navGraph);
+        else if (pacmanField.getGraph() != navGraph)
+            pacmanField.setGraph(navGraph);
+        if (food == null)
+            food = new FoodGrid(ROW_COUNT, COLUMN_COUNT, TILE_SIZE);
+        food.copyFrom(template.getFood());
+        if (ghosts == null)
+            ghosts = new GhostStore(template.getGhostCount());
+        ghosts.clear();
+        if (template.hasPacman() && (pacman == null || pacman.startX != template.getPacmanX() || pacman.startY != template.getPacmanY()))
+            pacman = new Block(Sprite.PACMAN_RIGHT, template.getPacmanX(), template.getPacmanY(), TILE_SIZE, TILE_SIZE);
+        else if (template.hasPacman())
+            resetPacman();
+        // The timers were about the previous map, and its ghosts are no longer scared
+        timers.clear();
+        scareTimer = -1;
+        ghostsScared = false;
+
+        // The ghosts draw their seed and the dots draw if they become cherries, in the order of the map
+        int cherries = 0;
+        for (int i = 0; i < template.getDrawCount(); i++) {
+            int draw = template.getDraw(i);
+            if (draw < 0) {
+                int ghost = ~draw;
+                ghosts.add(template.getGhostSprite(ghost), template.getGhostX(ghost), template.getGhostY(ghost), random.nextLong());
+            } else {
+                // Maximum number of cherries on the board
+                int MAX_CHERRIES = 5;
+                if (cherries <= MAX_CHERRIES && random.nextInt(100) == 0) {
+                    // Cherries show up one after the other, each for a limited time
+                    food.setTile(draw, FoodGrid.EMPTY);
+                    int spawn = tick + toTicks(CHERRY_FIRST_SPAWN + cherries * CHERRY_SPAWN_INTERVAL);
+                    timers.schedule(spawn, event(CHERRY_SPAWN, draw));
+                    cherries++;
+                }
+            }
+        }
+
+        int ghostCount = ghosts.count;
+        if (ghostGrid == null || ghostGrid.getCapacity() != ghostCount)
+            ghostGrid = new SpatialGrid(BOARD_WIDTH, BOARD_HEIGHT, TILE_SIZE * GHOST_GRID_CELL_TILES, ghostCount);
+        else
+            ghostGrid.clear();
+        if (nearbyGhosts.length != ghostCount) {
+            nearbyGhosts = new int[ghostCount];
+            ghostContacts = new long[ghostCount];
+            decisionTimers = new int[ghostCount];
+            respawnTimers = new int[ghostCount];
+        }
+        updateGhostGrid();
+        Arrays.fill(decisionTimers, -1);
+        Arrays.fill(respawnTimers, -1);
+        scheduleDecisions();
+
+        event.end();
+        if (recordEvents && event.shouldCommit()) {
+            event.level = level;
+            event.rows = levelData.getRows();
+            event.columns = levelData.getColumns();
+            event.ghosts = ghosts.count;
+            event.dots = food.getDotCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * Puts Pac-Man back at its start as a new Pac-Man, facing up and looking right.
+     */
+    private void resetPacman() {
+        pacman.reset();
+        pacman.savePosition();
+        pacman.sprite = Sprite.PACMAN_RIGHT;
+        pacman.isScared = false;
+        pacman.direction = 'U';
+        pacman.velocityX = 0;
+        pacman.velocityY = 0;
+    }
+
+    /**
+     * Advances the game by one tick.
+     * A direction that Pac-Man cannot take yet because of a wall is kept, and taken on the first tick the way is free,
+     * until the player asks for another one.
+     * @param input The direction asked by the player during the tick ('U', 'D', 'L' or 'R'), or NO_INPUT
+     */
+    public void step(char input) {
+        food.clearChanges();
+        if (gameOver)
+            return;
+
+        pacman.savePosition();
+        ghosts.savePositions();
+
+        if (input != NO_INPUT)
+            bufferedDirection = input;
+        if (bufferedDirection != NO_INPUT) {
+            // Asking again for the direction Pac-Man is going in does nothing
+            boolean moving = pacman.velocityX != 0 || pacman.velocityY != 0;
+            if (pacman.direction != bufferedDirection || !moving)
+                turnPacman(bufferedDirection);
+            if (pacman.direction == bufferedDirection)
+                bufferedDirection = NO_INPUT;
+        }
+
+        move();
+    }
+
+    /**
+     * Turns Pacman in a direction, if there is no wall in the way, and updates its sprite.
+     * @param direction The direction asked by the player
+     */
+    private void turnPacman(char direction) {
+        pacman.updateDirection(direction);
+
+        switch (pacman.direction) {
+            case 'U' -> pacman.sprite = Sprite.PACMAN_UP;
+            case 'D' -> pacman.sprite = Sprite.PACMAN_DOWN;
+            case 'L' -> pacman.sprite = Sprite.PACMAN_LEFT;
+            case 'R' -> pacman.sprite = Sprite.PACMAN_RIGHT;
+        }
+    }
+
+    /**
+     * Plays the events due on the tick, and moves the Pacman character and the ghosts.
+     */
+    public void move() {
+        if (gameOver)
+            return;
+
+        // Only the events due now are looked at, the decisions of the ghosts wait until the ghosts move
+        tick++;
+        int expired = timers.expire(tick);
+        for (int i = 0; i < expired; i++) {
+            int event = timers.getExpired(i);
+            int target = event & EVENT_TARGET_MASK;
+            switch (event >>> EVENT_KIND_SHIFT) {
+                case SCARE_END -> {
+                    ghostsScared = false;
+                    scareTimer = -1;
+                }
+                case CHERRY_SPAWN -> {
+                    food.spawnCherry(target);
+                    timers.schedule(tick + toTicks(CHERRY_DURATION), event(CHERRY_DESPAWN, target));
+                }
+                case CHERRY_DESPAWN -> food.removeCherry(target);
+                case GHOST_RESPAWN -> respawnTimers[target] = -1;
+                case GHOST_DECISION -> decisionTimers[target] = -1;
+            }
+        }
+
+        // Pacman stops at the first wall on its way
+        pacman.advance();
+
+        // Check if Pacman get out of the screen and teleport to the other side
+        checkIfOutOfBound(pacman);
+
+        // The distances to Pac-Man only change when it enters another tile
+        pacmanField.update(getPacmanTile());
+        GhostMode ghostMode = getGhostMode();
+
+        // The ghosts on a tile choose their way, unless they were eaten
+        long ghostStart = metrics != null ? System.nanoTime() : 0;
+        int checks = 0;
+        for (int i = 0; i < expired; i++) {
+            int ghost = getDecidingGhost(timers.getExpired(i));
+            if (ghost >= 0)
+                chooseGhostDirection(ghost, ghostMode);
+        }
+
+        // Ghosts only read the shared state while they move, so chunks of them can move on different threads
+        int count = ghosts.count;
+        if (parallelGhosts && count >= PARALLEL_GHOSTS) {
+            checks += IntStream.range(0, (count + GHOST_CHUNK - 1) / GHOST_CHUNK).parallel()
+                    .map(chunk -> moveGhosts(chunk * GHOST_CHUNK, Math.min(count, (chunk + 1) * GHOST_CHUNK)))
+                    .sum();
+        } else {
+            checks += moveGhosts(0, count);
+        }
+        updateGhostGrid();
+
+        // The ghosts that chose their way choose again on the next tile they reach
+        for (int i = 0; i < expired; i++) {
+            int ghost = getDecidingGhost(timers.getExpired(i));
+            if (ghost >= 0)
+                scheduleDecision(ghost);
+        }
+        long ghostNanos = metrics != null ? System.nanoTime() - ghostStart : 0;
+
+        long collisionStart = metrics != null ? System.nanoTime() : 0;
+        // Pacman and the ghosts moved at the same time, they meet if their boxes crossed anywhere along the moves
+        checks += 1 + checkGhostCollisions();
+
+        // Check for collision between Pacman and power food
+        if (food.eatPowerFood(pacman.x, pacman.y, pacman.width, pacman.height)) {
+            addScore(100);
+            Arrays.fill(ghosts.scared, 0, ghosts.count, true);
+            ghostsScared = true;
+            // Another power food makes the scare last from now
+            timers.cancel(scareTimer);
+            scareTimer = timers.schedule(tick + toTicks(GHOST_SCARED_DURATION), event(SCARE_END, 0));
+        }
+
+        // Check for collision between Pacman and cherries
+        if (food.eatCherry(pacman.x, pacman.y, pacman.width, pacman.height))
+            addScore(50);
+
+        // Check for collision between Pacman and food
+        if (food.eatDot(pacman.x, pacman.y, pacman.width, pacman.height))
+            addScore(10);
+        checks += 3;
+
+        if (metrics != null)
+            metrics.record(System.nanoTime() - collisionStart, ghostNanos, checks);
+
+        // Check if all food is eaten
+        if (food.getDotCount() == 0) {
+            level++;
+            loadMap();
+            resetPosition();
+            addScore(100);
+        }
+    }
+
+    /**
+     * Checks for collisions between Pac-Man and the ghosts bucketed near it, over the moves they made during the tick.
+     * Pac-Man and the ghosts move in a straight line at the same time, and a ghost is hit if its box overlapped
+     * the box of Pac-Man at any time of the tick, even if they went through each other, so blocks moving farther
+     * than their size in a tick still meet.
+     * The ghosts are hit in the order they were touched, then in the order of the map.
+     * A scared ghost is eaten and goes back to its start, any other ghost costs a life.
+     * @return the number of ghosts checked
+     */
+    private int checkGhostCollisions() {
+        int fromX = moveStart(pacman.previousX, pacman.x, BOARD_WIDTH, pacman.width, pacman.VELOCITY);
+        int fromY = moveStart(pacman.previousY, pacman.y, BOARD_HEIGHT, pacman.height, pacman.VELOCITY);
+
+        // A ghost can meet Pac-Man from as far as it moves in a tick
+        int found = ghostGrid.query(Math.min(fromX, pacman.x) - GHOST_VELOCITY, Math.min(fromY, pacman.y) - GHOST_VELOCITY,
+                Math.abs(pacman.x - fromX) + pacman.width + 2 * GHOST_VELOCITY,
+                Math.abs(pacman.y - fromY) + pacman.height + 2 * GHOST_VELOCITY, nearbyGhosts);
+
+        int hits = 0;
+        for (int i = 0; i < found; i++) {
+            int ghost = nearbyGhosts[i];
+            long time = meetingTime(ghost, fromX, fromY);
+            if (time >= 0)
+                ghostContacts[hits++] = time << 32 | ghost;
+        }
+        Arrays.sort(ghostContacts, 0, hits);
+
+        for (int i = 0; i < hits; i++) {
+            int ghost = (int) ghostContacts[i];
+            if (ghostsScared && ghosts.scared[ghost]) {
+                addScore(200);
+                ghosts.scared[ghost] = false;
+                ghosts.x[ghost] = ghosts.startX[ghost];
+                ghosts.y[ghost] = ghosts.startY[ghost];
+                ghostGrid.update(ghost, ghosts.x[ghost], ghosts.y[ghost]);
+                // The ghost waits at its start before leaving again
+                ghosts.velocityX[ghost] = 0;
+                ghosts.velocityY[ghost] = 0;
+                timers.cancel(decisionTimers[ghost]);
+                decisionTimers[ghost] = -1;
+                timers.cancel(respawnTimers[ghost]);
+                respawnTimers[ghost] = timers.schedule(tick + toTicks(GHOST_RESPAWN_DELAY), event(GHOST_RESPAWN, ghost));
+            } else {
+                lives--;
+                if (lives <= 0)
+                    gameOver = true;
+
+                DeathEvent event = new DeathEvent();
+                if (recordEvents && event.shouldCommit()) {
+                    event.level = level;
+                    event.lives = lives;
+                    event.score = score;
+                    event.commit();
+                }
+
+                // Every ghost is back at its start, away from Pac-Man
+                resetPosition();
+                return found;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Get when a ghost met Pac-Man during the tick, both moving in a straight line from where they were before the tick.
+     * On each axis the boxes overlap while the offset between them is between minus the width of Pac-Man and the width
+     * of the ghost, which is an open range of the tick, and they meet if the ranges of both axes and the tick overlap.
+     * The times are compared as fractions so that a box touching another by its edge does not meet it.
+     * @param ghost The index of the ghost
+     * @param fromX The x-coordinate Pac-Man moved from
+     * @param fromY The y-coordinate Pac-Man moved from
+     * @return the part of the tick before they met, in units of 1 / MEETING_TIME_UNIT, or -1 if they did not meet
+     */
+    private long meetingTime(int ghost, int fromX, int fromY) {
+        int ghostFromX = moveStart(ghosts.previousX[ghost], ghosts.x[ghost], BOARD_WIDTH, TILE_SIZE, GHOST_VELOCITY);
+        int ghostFromY = moveStart(ghosts.previousY[ghost], ghosts.y[ghost], BOARD_HEIGHT, TILE_SIZE, GHOST_VELOCITY);
+
+        // Offset of Pac-Man from the ghost before the tick, and how it changes over the tick
+        long offsetX = fromX - ghostFromX;
+        long offsetY = fromY - ghostFromY;
+        long shiftX = (pacman.x - fromX) - (ghosts.x[ghost] - ghostFromX);
+        long shiftY = (pacman.y - fromY) - (ghosts.y[ghost] - ghostFromY);
+        // An axis without any shift overlaps for the whole tick, or never
+        if ((shiftX == 0 && (offsetX <= -pacman.width || offsetX >= TILE_SIZE))
+                || (shiftY == 0 && (offsetY <= -pacman.height || offsetY >= TILE_SIZE)))
+            return -1;
+
+        // The boxes overlap on an axis from start / span to end / span of the tick
+        long startX = shiftX == 0 ? -1 : shiftX > 0 ? -pacman.width - offsetX : offsetX - TILE_SIZE;
+        long endX = shiftX == 0 ? 2 : shiftX > 0 ? TILE_SIZE - offsetX : offsetX + pacman.width;
+        long spanX = shiftX == 0 ? 1 : Math.abs(shiftX);
+        long startY = shiftY == 0 ? -1 : shiftY > 0 ? -pacman.height - offsetY : offsetY - TILE_SIZE;
+        long endY = shiftY == 0 ? 2 : shiftY > 0 ? TILE_SIZE - offsetY : offsetY + pacman.height;
+        long spanY = shiftY == 0 ? 1 : Math.abs(shiftY);
+
+        // Latest start and earliest end of the two axes
+        boolean startsOnX = startX * spanY >= startY * spanX;
+        long start = startsOnX ? startX : startY;
+        long startSpan = startsOnX ? spanX : spanY;
+        boolean endsOnX = endX * spanY <= endY * spanX;
+        long end = endsOnX ? endX : endY;
+        long endSpan = endsOnX ? spanX : spanY;
+
+        if (start * endSpan >= end * startSpan || start >= startSpan || end <= 0)
+            return -1;
+        return start <= 0 ? 0 : start * MEETING_TIME_UNIT / startSpan;
+    }
+
+    /**
+     * Get where a block started its move along an axis during the tick, from its coordinates before and after the tick.
+     * A block that went through a tunnel is taken as coming from beyond the edge it came out of,
+     * and a block that jumped farther than it can move in a tick, such as back to its start, as not having moved.
+     * @param previous The coordinate before the tick
+     * @param current The coordinate after the tick
+     * @param boardSize The size of the board along the axis
+     * @param size The size of the block along the axis
+     * @param maxStep The farthest the block moves in a tick
+     * @return the coordinate the move started from
+     */
+    private static int moveStart(int previous, int current, int boardSize, int size, int maxStep) {
+        int distance = current - previous;
+        // Tunnels take a block from one side of the board, beyond the edge by its size, to the other
+        if (distance > maxStep)
+            distance -= boardSize + size;
+        else if (distance < -maxStep)
+            distance += boardSize + size;
+        return Math.abs(distance) <= maxStep ? current - distance : current;
+    }
+
+    /**
+     * Moves a range of ghosts. Each ghost only changes its own entries of the store.
+     * @param from The index of the first ghost
+     * @param to The index after the last ghost
+     * @return the number of wall checks made
+     */
+    private int moveGhosts(int from, int to) {
+        int[] x = ghosts.x;
+        int[] y = ghosts.y;
+        int[] velocityX = ghosts.velocityX;
+        int[] velocityY = ghosts.velocityY;
+        int checks = 0;
+
+        for (int ghost = from; ghost < to; ghost++) {
+            // A ghost stops at the first wall on its way, and turns once the wall is right in front of it
+            checks++;
+            boolean moving = velocityX[ghost] != 0 || velocityY[ghost] != 0;
+            if (moving && !advanceGhost(ghost)) {
+                // A ghost steered by a player waits for its next direction
+                if (ghosts.control[ghost] < 0) {
+                    updateGhostDirection(ghost, ghosts.nextRandom(ghost, directions.length));
+                    checks++;
+                }
+            }
+
+            // Check if the ghost gets out of the screen and teleports to the other side
+            if (x[ghost] <= -TILE_SIZE) {
+                x[ghost] = BOARD_WIDTH;
+            } else if (x[ghost] >= BOARD_WIDTH) {
+                x[ghost] = -TILE_SIZE;
+            }
+            if (y[ghost] <= -TILE_SIZE) {
+                y[ghost] = BOARD_HEIGHT;
+            } else if (y[ghost] >= BOARD_HEIGHT) {
+                y[ghost] = -TILE_SIZE;
+            }
+        }
+        return checks;
+    }
+
+    /**
+     * Moves every ghost to the bucket of its position.
+     */
+    private void updateGhostGrid() {
+        for (int ghost = 0; ghost < ghosts.count; ghost++) {
+            ghostGrid.update(ghost, ghosts.x[ghost], ghosts.y[ghost]);
+        }
+    }
+
+    /**
+     * Turns a ghost without moving it, when the way is known to be free.
+     * @param ghost The index of the ghost
+     * @param direction The index of the direction, from NavGraph.UP to NavGraph.RIGHT
+     */
+    private void turnGhost(int ghost, int direction) {
+        ghosts.direction[ghost] = (byte) direction;
+        ghosts.velocityX[ghost] = switch (direction) {
+            case NavGraph.LEFT -> -GHOST_VELOCITY;
+            case NavGraph.RIGHT -> GHOST_VELOCITY;
+            default -> 0;
+        };
+        ghosts.velocityY[ghost] = switch (direction) {
+            case NavGraph.UP -> -GHOST_VELOCITY;
+            case NavGraph.DOWN -> GHOST_VELOCITY;
+            default -> 0;
+        };
+    }
+
+    /**
+     * Turns a ghost and moves it one step, or keeps its direction if there is a wall in the way.
+     * @param ghost The index of the ghost
+     * @param direction The index of the direction, from NavGraph.UP to NavGraph.RIGHT
+     */
+    private void updateGhostDirection(int ghost, int direction) {
+        int previousDirection = ghosts.direction[ghost];
+        turnGhost(ghost, direction);
+
+        if (!advanceGhost(ghost))
+            turnGhost(ghost, previousDirection);
+    }
+
+    /**
+     * Moves a ghost by its velocity, stopping at the first wall on its way.
+     * @param ghost The index of the ghost
+     * @return True if the ghost moved, false if a wall was right in front of it
+     */
+    private boolean advanceGhost(int ghost) {
+        if (ghosts.velocityX[ghost] != 0) {
+            int distance = wallGrid.sweepX(ghosts.x[ghost], ghosts.y[ghost], TILE_SIZE, TILE_SIZE, ghosts.velocityX[ghost]);
+            ghosts.x[ghost] += distance;
+            return distance != 0;
+        }
+        int distance = wallGrid.sweepY(ghosts.x[ghost], ghosts.y[ghost], TILE_SIZE, TILE_SIZE, ghosts.velocityY[ghost]);
+        ghosts.y[ghost] += distance;
+        return distance != 0;
+    }
+
+    /**
+     * Get the tile Pacman is on, the one under its center.
+     * @return the index of the tile
+     */
+    int getPacmanTile() {
+        int column = Math.floorMod(Math.floorDiv(pacman.x + pacman.width / 2, TILE_SIZE), COLUMN_COUNT);
+        int row = Math.floorMod(Math.floorDiv(pacman.y + pacman.height / 2, TILE_SIZE), ROW_COUNT);
+        return row * COLUMN_COUNT + column;
+    }
+
+    /**
+     * Get the mode of the ghosts that are not frightened, from the time since the positions were reset.
+     * @return SCATTER or CHASE
+     */
+    GhostMode getGhostMode() {
+        int seconds = (tick - modeStartTick) / TICKS_PER_SECOND;
+        for (int i = 0; i < GHOST_MODE_SCHEDULE.length; i++) {
+            if (seconds < GHOST_MODE_SCHEDULE[i])
+                return i % 2 == 0 ? GhostMode.SCATTER : GhostMode.CHASE;
+            seconds -= GHOST_MODE_SCHEDULE[i];
+        }
+        return GhostMode.CHASE;
+    }
+
+    /**
+     * Turns a ghost standing exactly on a tile towards its target.
+     * The ghost takes the neighbor tile closest to its target, or farthest from Pac-Man when it is frightened,
+     * and never turns back unless it is in a dead end.
+     * In chase mode the red and pink ghosts head for Pac-Man, the blue one sometimes wanders at random
+     * and the orange one goes back to its corner when it gets close to Pac-Man.
+     * @param ghost The index of the ghost
+     * @param ghostMode The mode of the ghosts that are not frightened
+     */
+    private void chooseGhostDirection(int ghost, GhostMode ghostMode) {
+        int ghostX = ghosts.x[ghost];
+        int ghostY = ghosts.y[ghost];
+        if (ghostX < 0 || ghostY < 0 || ghostX % TILE_SIZE != 0 || ghostY % TILE_SIZE != 0)
+            return;
+        int column = ghostX / TILE_SIZE;
+        int row = ghostY / TILE_SIZE;
+        if (column >= COLUMN_COUNT || row >= ROW_COUNT)
+            return;
+        int tile = row * COLUMN_COUNT + column;
+
+        // A ghost steered by a player turns where it is asked to, as soon as it can
+        int control = ghosts.control[ghost];
+        if (control >= 0) {
+            if (navGraph.neighbor(tile, control) >= 0)
+                turnGhost(ghost, control);
+            return;
+        }
+
+        Sprite sprite = ghosts.getSprite(ghost);
+        GhostMode mode = (ghostsScared && ghosts.scared[ghost]) ? GhostMode.FRIGHTENED : ghostMode;
+        DistanceField field = switch (mode) {
+            case FRIGHTENED -> pacmanField;
+            case SCATTER -> scatterFields.get(sprite);
+            case CHASE -> switch (sprite) {
+                case BLUE_GHOST -> ghosts.nextRandom(ghost, 4) == 0 ? null : pacmanField;
+                case ORANGE_GHOST -> pacmanField.distance(tile) > ORANGE_GHOST_SHYNESS ? pacmanField : scatterFields.get(sprite);
+                default -> pacmanField;
+            };
+        };
+        boolean away = mode == GhostMode.FRIGHTENED;
+
+        int reverse = ghosts.direction[ghost] ^ 1;
+        int best = -1;
+        int bestDistance = 0;
+        int choices = 0;
+        for (int direction = 0; direction < directions.length; direction++) {
+            int neighbor = navGraph.neighbor(tile, direction);
+            if (direction == reverse || neighbor < 0)
+                continue;
+
+            if (field == null) {
+                // Wandering: every free direction has the same chance
+                choices++;
+                if (ghosts.nextRandom(ghost, choices) == 0)
+                    best = direction;
+                continue;
+            }
+
+            int distance = field.distance(neighbor);
+            if (best < 0 || (away ? distance > bestDistance : distance < bestDistance)) {
+                best = direction;
+                bestDistance = distance;
+            }
+        }
+
+        // Dead end, the only way is back
+        if (best < 0 && navGraph.neighbor(tile, reverse) >= 0)
+            best = reverse;
+        if (best >= 0)
+            turnGhost(ghost, best);
+    }
+
+    /**
+     * Get the index of a direction in the directions array.
+     * @param direction The direction, 'U', 'D', 'L' or 'R'
+     * @return the index of the direction
+     */
+    int directionIndex(char direction) {
+        return switch (direction) {
+            case 'D' -> NavGraph.DOWN;
+            case 'L' -> NavGraph.LEFT;
+            case 'R' -> NavGraph.RIGHT;
+            default -> NavGraph.UP;
+        };
+    }
+
+    /**
+     * Adds score to the current score and updates the high score if necessary.
+     * @param score The score to be added, default is 20
+     */
+    private void addScore(int score) {
+        this.score += score;
+        if (this.score >= highScore)
+            highScore = this.score;
+    }
+
+    /**
+     * Checks if a block is out of bounds and teleports it to the other side of the screen.
+     * @param block The block to check
+     */
+    private void checkIfOutOfBound(Block block) {
+        if (block.x <= -block.width) {
+            block.x = BOARD_WIDTH;
+        } else if (block.x >= BOARD_WIDTH) {
+            block.x = -block.width;
+        }
+        if (block.y <= -block.height) {
+            block.y = BOARD_HEIGHT;
+        } else if (block.y >= BOARD_HEIGHT) {
+            block.y = -block.height;
+        }
+    }
+
+    /**
+     * Checks for collisions between two blocks.
+     * @param a First block
+     * @param b Second block
+     * @return True if there is a collision, false otherwise
+     */
+    public boolean collision(Block a, Block b) {
+        return a.x < b.x + b.width &&
+                a.x + a.width > b.x &&
+                a.y < b.y + b.height &&
+                a.y + a.height > b.y;
+    }
+
+    /**
+     * Resets the position of Pacman and the ghosts.
+     */
+    public void resetPosition() {
+        modeStartTick = tick;
+        bufferedDirection = NO_INPUT;
+        pacman.reset();
+        pacman.velocityX = 0;
+        pacman.velocityY = 0;
+
+        System.arraycopy(ghosts.startX, 0, ghosts.x, 0, ghosts.count);
+        System.arraycopy(ghosts.startY, 0, ghosts.y, 0, ghosts.count);
+        for (int ghost = 0; ghost < ghosts.count; ghost++) {
+            updateGhostDirection(ghost, ghosts.nextRandom(ghost, directions.length));
+            timers.cancel(respawnTimers[ghost]);
+            respawnTimers[ghost] = -1;
+        }
+        updateGhostGrid();
+        scheduleDecisions();
+    }
+
+    /**
+     * Computes a checksum of the state of the game, to check that two simulations have not diverged.
+     * @return the checksum
+     */
+    public int checksum() {
+        int hash = level;
+        hash = 31 * hash + score;
+        hash = 31 * hash + lives;
+        hash = 31 * hash + (gameOver ? 1 : 0);
+        hash = 31 * hash + (ghostsScared ? 1 : 0);
+        hash = 31 * hash + tick;
+        hash = 31 * hash + modeStartTick;
+        hash = 31 * hash + timers.size();
+        hash = 31 * hash + food.getDotCount();
+        hash = 31 * hash + food.getCherryCount();
+        hash = 31 * hash + pacman.x;
+        hash = 31 * hash + pacman.y;
+        hash = 31 * hash + pacman.direction;
+        hash = 31 * hash + bufferedDirection;
+        for (int ghost = 0; ghost < ghosts.count; ghost++) {
+            hash = 31 * hash + ghosts.x[ghost];
+            hash = 31 * hash + ghosts.y[ghost];
+            hash = 31 * hash + ghosts.direction[ghost];
+            hash = 31 * hash + (ghosts.scared[ghost] ? 1 : 0);
+            hash = 31 * hash + ghosts.control[ghost];
+        }
+        return hash;
+    }
+
+    /**
+     * Creates a game on the same board and levels, in the same state, such as to try moves on it.
+     * The copy has its own random source, which is only used when it loads a level.
+     * @param random Random source of the copy
+     * @return the copy
+     */
+    Game copy(Random random) {
+        Game copy = new Game(levels, BOARD_WIDTH, BOARD_HEIGHT, TILE_SIZE, random, level, TICKS_PER_SECOND);
+        copy.recordEvents = false;
+        ByteBuffer buffer = ByteBuffer.allocate(getSnapshotSize());
+        snapshot(buffer);
+        copy.restore(buffer.flip());
+        return copy;
+    }
+
+    /**
+     * Get the number of bytes written by {@link #snapshot}, which changes with the level.
+     * @return the size of a snapshot of the current state
+     */
+    public int getSnapshotSize() {
+        return SNAPSHOT_HEADER_SIZE + ghosts.count * SNAPSHOT_GHOST_SIZE + food.getSnapshotSize() + getTimersSize();
+    }
+
+    /**
+     * Writes the state of the game to a buffer: the counters, Pac-Man and each ghost as a few packed ints,
+     * and the food as bitmaps. The walls are not written, they are those of the level.
+     * The random source of the game is not written either, it is only used when a level is loaded.
+     * @param buffer The buffer to write to, with at least {@link #getSnapshotSize()} bytes remaining
+     */
+    public void snapshot(ByteBuffer buffer) {
+        buffer.putInt(level);
+        buffer.putInt(score);
+        buffer.putInt(highScore);
+        buffer.putInt(lives);
+        buffer.putInt(tick);
+        buffer.putInt(modeStartTick);
+        buffer.put((byte) ((ghostsScared ? 1 : 0) | (gameOver ? 2 : 0)));
+
+        buffer.putInt(pacman.x);
+        buffer.putInt(pacman.y);
+        buffer.put(getPacmanState());
+        buffer.put((byte) pacman.sprite.ordinal());
+
+        buffer.putInt(ghosts.count);
+        for (int ghost = 0; ghost < ghosts.count; ghost++) {
+            buffer.putInt(ghosts.x[ghost]);
+            buffer.putInt(ghosts.y[ghost]);
+            buffer.put(getGhostState(ghost));
+            buffer.putLong(ghosts.random[ghost]);
+        }
+
+        food.writeTo(buffer);
+        writeTimers(buffer);
+    }
+
+    /**
+     * Sets the state of the game from a snapshot of this game, loading the level of the snapshot if needed.
+     * The blocks move from their current position to the restored one, for the rendering.
+     * @param buffer The buffer holding the snapshot
+     * @throws IllegalArgumentException if the snapshot does not fit the level
+     */
+    public void restore(ByteBuffer buffer) {
+        int snapshotLevel = buffer.getInt();
+        if (snapshotLevel != level) {
+            level = snapshotLevel;
+            loadMap();
+        }
+        pacman.savePosition();
+        ghosts.savePositions();
+
+        score = buffer.getInt();
+        highScore = buffer.getInt();
+        lives = buffer.getInt();
+        tick = buffer.getInt();
+        modeStartTick = buffer.getInt();
+        int flags = buffer.get();
+        ghostsScared = (flags & 1) != 0;
+        gameOver = (flags & 2) != 0;
+
+        pacman.x = buffer.getInt();
+        pacman.y = buffer.getInt();
+        setPacmanState(buffer.get());
+        pacman.sprite = SPRITES[buffer.get()];
+
+        int count = buffer.getInt();
+        if (count != ghosts.count)
+            throw new IllegalArgumentException("Snapshot of " + count + " ghosts for a level of " + ghosts.count);
+        for (int ghost = 0; ghost < count; ghost++) {
+            ghosts.x[ghost] = buffer.getInt();
+            ghosts.y[ghost] = buffer.getInt();
+            setGhostState(ghost, buffer.get());
+            ghosts.random[ghost] = buffer.getLong();
+        }
+        updateGhostGrid();
+
+        food.readFrom(buffer);
+        readTimers(buffer);
+    }
+
+    /**
+     * Packs the state of Pac-Man into a byte: its direction (2 bits), if it is moving (1 bit),
+     * and the direction waiting for the way to be free (1 bit telling if there is one, then 2 bits).
+     * @return the packed state
+     */
+    byte getPacmanState() {
+        int state = directionIndex(pacman.direction) | (pacman.velocityX != 0 || pacman.velocityY != 0 ? 4 : 0);
+        if (bufferedDirection != NO_INPUT)
+            state |= 16 | directionIndex(bufferedDirection) << 5;
+        return (byte) state;
+    }
+
+    /**
+     * Sets the state of Pac-Man from a byte packed by {@link #getPacmanState()}.
+     * @param state The packed state
+     */
+    void setPacmanState(int state) {
+        pacman.turn(directions[state & 3]);
+        if ((state & 4) == 0) {
+            pacman.velocityX = 0;
+            pacman.velocityY = 0;
+        }
+        bufferedDirection = (state & 16) != 0 ? directions[state >> 5 & 3] : NO_INPUT;
+    }
+
+    /**
+     * Packs the state of a ghost into a byte: its direction (2 bits), if it is moving (1 bit), if it is scared (1 bit),
+     * and the direction asked by the player controlling it (1 bit telling if there is one, then 2 bits).
+     * @param ghost The index of the ghost
+     * @return the packed state
+     */
+    byte getGhostState(int ghost) {
+        int state = ghosts.direction[ghost]
+                | (ghosts.velocityX[ghost] != 0 || ghosts.velocityY[ghost] != 0 ? 4 : 0)
+                | (ghosts.scared[ghost] ? 8 : 0);
+        if (ghosts.control[ghost] >= 0)
+            state |= 16 | ghosts.control[ghost] << 5;
+        return (byte) state;
+    }
+
+    /**
+     * Sets the state of a ghost from a byte packed by {@link #getGhostState}.
+     * @param ghost The index of the ghost
+     * @param state The packed state
+     */
+    void setGhostState(int ghost, int state) {
+        turnGhost(ghost, state & 3);
+        if ((state & 4) == 0) {
+            ghosts.velocityX[ghost] = 0;
+            ghosts.velocityY[ghost] = 0;
+        }
+        ghosts.scared[ghost] = (state & 8) != 0;
+        ghosts.control[ghost] = (byte) ((state & 16) != 0 ? state >> 5 & 3 : -1);
+    }
+
+    /**
+     * Packs an event of a timer.
+     * @param kind The kind of event, such as GHOST_DECISION
+     * @param target The ghost or the tile the event is about
+     * @return the event
+     */
+    private static int event(int kind, int target) {
+        return kind << EVENT_KIND_SHIFT | target;
+    }
+
+    /**
+     * Get the ghost an event makes choose its way, a decision or the end of a respawn delay.
+     * @param event The event
+     * @return the index of the ghost, or -1 if the event is about something else or the ghost is waiting to respawn
+     */
+    private int getDecidingGhost(int event) {
+        int kind = event >>> EVENT_KIND_SHIFT;
+        int ghost = event & EVENT_TARGET_MASK;
+        if ((kind != GHOST_DECISION && kind != GHOST_RESPAWN) || respawnTimers[ghost] >= 0)
+            return -1;
+        return ghost;
+    }
+
+    /**
+     * Converts a duration to a number of ticks.
+     * @param millis The duration, in milliseconds
+     * @return the number of ticks
+     */
+    private int toTicks(int millis) {
+        return millis * TICKS_PER_SECOND / 1000;
+    }
+
+    /**
+     * Schedules the next decision of a ghost on the first tick it starts on a tile, from its position and velocity,
+     * which the ghost keeps until it is on a tile. A ghost that cannot reach a tile gets no decision.
+     * The decisions are not written in snapshots, they are scheduled again from the positions.
+     * @param ghost The index of the ghost
+     */
+    private void scheduleDecision(int ghost) {
+        timers.cancel(decisionTimers[ghost]);
+        decisionTimers[ghost] = -1;
+
+        int offsetX = Math.floorMod(ghosts.x[ghost], TILE_SIZE);
+        int offsetY = Math.floorMod(ghosts.y[ghost], TILE_SIZE);
+        int velocityX = ghosts.velocityX[ghost];
+        int velocityY = ghosts.velocityY[ghost];
+        int moves;
+        if (offsetX == 0 && offsetY == 0)
+            moves = 0;
+        else if (offsetY == 0 && velocityX != 0)
+            moves = (velocityX > 0 ? TILE_SIZE - offsetX : offsetX) / Math.abs(velocityX);
+        else if (offsetX == 0 && velocityY != 0)
+            moves = (velocityY > 0 ? TILE_SIZE - offsetY : offsetY) / Math.abs(velocityY);
+        else
+            return;
+        decisionTimers[ghost] = timers.schedule(tick + 1 + moves, event(GHOST_DECISION, ghost));
+    }
+
+    /**
+     * Schedules the next decision of every ghost not waiting to respawn, such as after their positions changed.
+     */
+    private void scheduleDecisions() {
+        for (int ghost = 0; ghost < ghosts.count; ghost++) {
+            if (respawnTimers[ghost] < 0) {
+                scheduleDecision(ghost);
+            } else {
+                timers.cancel(decisionTimers[ghost]);
+                decisionTimers[ghost] = -1;
+            }
+        }
+    }
+
+    /**
+     * Collects the timers written in snapshots, all but the decisions of the ghosts, sorted by tick and event.
+     * @return the number of timers, in the savedTimers array
+     */
+    int collectTimers() {
+        if (savedTimers.length < timers.size())
+            savedTimers = new long[timers.size()];
+        int count = 0;
+        for (int timer = timers.nextTimer(0); timer >= 0; timer = timers.nextTimer(timer + 1)) {
+            int event = timers.getEvent(timer);
+            if (event >>> EVENT_KIND_SHIFT != GHOST_DECISION)
+                savedTimers[count++] = (long) timers.getDeadline(timer) << 32 | (event & 0xFFFFFFFFL);
+        }
+        Arrays.sort(savedTimers, 0, count);
+        return count;
+    }
+
+    /**
+     * Get the number of bytes written by {@link #writeTimers}.
+     * @return the size of the timers
+     */
+    private int getTimersSize() {
+        return 4 + collectTimers() * 8;
+    }
+
+    /**
+     * Writes the timers that cannot be computed from the rest of the state: their number, then the tick and the event
+     * of each of them.
+     * @param buffer The buffer to write to
+     */
+    void writeTimers(ByteBuffer buffer) {
+        int count = collectTimers();
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(savedTimers[i]);
+        }
+    }
+
+    /**
+     * Replaces the timers by the ones written by {@link #writeTimers}, and schedules the decisions of the ghosts
+     * from their positions.
+     * @param buffer The buffer to read from
+     */
+    void readTimers(ByteBuffer buffer) {
+        timers.clear();
+        Arrays.fill(decisionTimers, -1);
+        Arrays.fill(respawnTimers, -1);
+        scareTimer = -1;
+
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            int deadline = buffer.getInt();
+            int event = buffer.getInt();
+            int timer = timers.schedule(deadline, event);
+            switch (event >>> EVENT_KIND_SHIFT) {
+                case SCARE_END -> scareTimer = timer;
+                case GHOST_RESPAWN -> respawnTimers[event & EVENT_TARGET_MASK] = timer;
+            }
+        }
+        scheduleDecisions();
+    }
+
+    /**
+     * Lets a player steer a ghost. The ghost takes the direction on the next tile where the way is free,
+     * and waits at walls instead of turning at random.
+     * @param ghost The index of the ghost
+     * @param direction The direction asked ('U', 'D', 'L' or 'R'), or NO_INPUT to leave the ghost to the game
+     */
+    public void controlGhost(int ghost, char direction) {
+        ghosts.control[ghost] = (byte) (direction != NO_INPUT ? directionIndex(direction) : -1);
+    }
+
+    /**
+     * Restarts the game from the first level.
+     */
+    public void restart() {
+        level = 1;
+        tick = 0;
+        loadMap();
+        resetPosition();
+        lives = 3;
+        score = 0;
+        gameOver = false;
+    }
+}
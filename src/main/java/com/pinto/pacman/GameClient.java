@@ -0,0 +1,331 @@
+package com.pinto.pacman;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.Random;
+
+/**
+ * GameClient plays in a room of a {@link GameServer}: it sends the inputs of the player and receives the game.
+ * <p>
+ * The game received is always a few ticks old, the time for the inputs to reach the server and the state to come back.
+ * So that the player sees its inputs right away, the client predicts the game: it plays each input on its own copy
+ * as soon as it is sent, and whenever the server sends a new state, the copy is restored to it
+ * and the inputs the server has not played yet are played again on top of it.
+ */
+public class GameClient {
+    // Inputs sent and not yet played by the server, played again on each state received
+    private static final int MAX_PENDING_INPUTS = 64;
+    private static final int INPUT_FRAME_SIZE = Protocol.FRAME_HEADER_SIZE + 4 + 1;
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE + 4);
+    // Inputs written and not yet taken by the socket, sent with the next ticks.
+    // A server that leaves as many inputs unread as the client keeps to play again is given up on
+    private final ByteBuffer out = ByteBuffer.allocate(MAX_PENDING_INPUTS * INPUT_FRAME_SIZE);
+
+    final int playerId;
+    final int role;
+    final int ghost;
+    final int rowCount;
+    final int columnCount;
+    final int tileSize;
+    final int ticksPerSecond;
+    final long seed;
+
+    // Game as the server last sent it
+    private final Game server;
+    private boolean synced = false;
+    private int serverTick = 0;
+    private int ack = 0;
+    private byte[] snapshot = new byte[0];
+
+    // Inputs sent and not yet played by the server, in a ring
+    private final int[] inputNumbers = new int[MAX_PENDING_INPUTS];
+    private final char[] inputDirections = new char[MAX_PENDING_INPUTS];
+    private int firstInput = 0;
+    private int inputCount = 0;
+    private int nextInput = 1;
+    // Last direction asked for a ghost, the server keeps steering the ghost with it
+    private char ghostDirection = Game.NO_INPUT;
+
+    private long bytesReceived = 0;
+    private boolean connected = true;
+
+    /**
+     * Constructor for the GameClient class, once the server has welcomed the player.
+     * @param channel The connection to the server
+     * @param welcome The welcome message, after its type
+     */
+    private GameClient(SocketChannel channel, ByteBuffer welcome) {
+        this.channel = channel;
+        this.playerId = welcome.getInt();
+        this.role = welcome.get();
+        this.ghost = welcome.getInt();
+        this.rowCount = welcome.getInt();
+        this.columnCount = welcome.getInt();
+        this.tileSize = welcome.getInt();
+        this.ticksPerSecond = welcome.getInt();
+        this.seed = welcome.getLong();
+        this.server = newGame();
+        server.recordEvents = false;
+    }
+
+    /**
+     * Connects to a server and joins a room.
+     * @param address The address of the server
+     * @param room The name of the room, created if nobody plays in it
+     * @param role The role asked for, the player watches the game if no role is free
+     * @return the client
+     * @throws IOException if the server cannot be reached
+     */
+    public static GameClient connect(InetSocketAddress address, String room, int role) throws IOException {
+        SocketChannel channel = SocketChannel.open(address);
+        channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+
+        ByteBuffer join = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE);
+        join.position(Protocol.FRAME_HEADER_SIZE);
+        Protocol.putString(join, room);
+        join.put((byte) role);
+        int length = join.position() - Protocol.FRAME_HEADER_SIZE;
+        join.flip();
+        Protocol.putHeader(join, Protocol.JOIN, length);
+        join.position(0);
+        while (join.hasRemaining()) {
+            channel.write(join);
+        }
+
+        // Waiting for the welcome, the rest of the messages are read without blocking
+        ByteBuffer header = ByteBuffer.allocate(4);
+        readFully(channel, header);
+        ByteBuffer welcome = ByteBuffer.allocate(header.getInt(0));
+        readFully(channel, welcome);
+        welcome.flip();
+        if (welcome.get() != Protocol.WELCOME)
+            throw new IOException("The server did not welcome the player");
+        channel.configureBlocking(false);
+        return new GameClient(channel, welcome);
+    }
+
+    /**
+     * Reads until a buffer is full, from a blocking channel.
+     * @param channel The channel
+     * @param buffer The buffer
+     * @throws IOException if the connection is closed first
+     */
+    private static void readFully(SocketChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0)
+                throw new EOFException("The server closed the connection");
+        }
+    }
+
+    /**
+     * Creates a game on the board of the room, in the state the server starts from.
+     * @return the game
+     */
+    public Game newGame() {
+        return new Game(columnCount * tileSize, rowCount * tileSize, tileSize, new Random(seed), 1, ticksPerSecond);
+    }
+
+    /**
+     * Plays one tick: reads what the server sent, corrects the predicted game if needed,
+     * then sends the input of the tick and plays it on the predicted game.
+     * Nothing is played until the server has sent the game once, or once the connection is lost.
+     * @param game The predicted game, created by {@link #newGame()}
+     * @param input The direction pressed during the tick, or NO_INPUT
+     */
+    public void tick(Game game, char input) {
+        if (!connected)
+            return;
+
+        try {
+            if (receive())
+                predict(game);
+            if (!synced)
+                return;
+
+            send(input);
+        } catch (IOException | RuntimeException e) {
+            close();
+            return;
+        }
+        play(game, input);
+    }
+
+    /**
+     * Reads the messages received so far, without blocking.
+     * @return True if a new state of the game was received
+     * @throws IOException if the connection is broken
+     */
+    private boolean receive() throws IOException {
+        int read = channel.read(in);
+        if (read < 0)
+            throw new EOFException("The server closed the connection");
+        bytesReceived += read;
+
+        boolean received = false;
+        in.flip();
+        while (in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length <= 0 || length > in.capacity() - 4)
+                throw new IOException("Frame of " + length + " bytes");
+            if (in.remaining() < 4 + length)
+                break;
+
+            int end = in.position() + 4 + length;
+            in.getInt();
+            byte type = in.get();
+            serverTick = in.getInt();
+            ack = in.getInt();
+            switch (type) {
+                case Protocol.FULL -> {
+                    server.restore(in);
+                    synced = true;
+                }
+                case Protocol.DELTA -> {
+                    // A difference is only meaningful on top of the state it was made from
+                    if (synced)
+                        StateSync.readDelta(server, in);
+                }
+                default -> throw new IOException("Unknown message");
+            }
+            in.position(end);
+            received = synced;
+        }
+        in.compact();
+        return received;
+    }
+
+    /**
+     * Restores the predicted game to the last state received, and plays again the inputs the server has not played.
+     * @param game The predicted game
+     */
+    private void predict(Game game) {
+        int size = server.getSnapshotSize();
+        if (snapshot.length < size)
+            snapshot = new byte[size];
+        server.snapshot(ByteBuffer.wrap(snapshot, 0, size));
+        game.restore(ByteBuffer.wrap(snapshot, 0, size));
+
+        // Inputs up to the last one played by the server are part of its state
+        while (inputCount > 0 && inputNumbers[firstInput] - ack <= 0) {
+            firstInput = (firstInput + 1) % MAX_PENDING_INPUTS;
+            inputCount--;
+        }
+        for (int i = 0; i < inputCount; i++) {
+            play(game, inputDirections[(firstInput + i) % MAX_PENDING_INPUTS]);
+        }
+    }
+
+    /**
+     * Sends the input of a tick, and keeps it to play it again until the server has played it.
+     * The bytes the socket does not take right away are sent first on the next tick, so that every input
+     * reaches the server whole and in order.
+     * @param input The direction pressed, or NO_INPUT
+     * @throws IOException if the connection is broken, or the server has not read the inputs for too long
+     */
+    private void send(char input) throws IOException {
+        int number = nextInput++;
+        if (inputCount == MAX_PENDING_INPUTS) {
+            firstInput = (firstInput + 1) % MAX_PENDING_INPUTS;
+            inputCount--;
+        }
+        int slot = (firstInput + inputCount) % MAX_PENDING_INPUTS;
+        inputNumbers[slot] = number;
+        inputDirections[slot] = input;
+        inputCount++;
+
+        if (out.remaining() < INPUT_FRAME_SIZE)
+            throw new IOException("The server stopped reading the inputs");
+        Protocol.putHeader(out, Protocol.INPUT, 4 + 1);
+        out.putInt(number);
+        out.put((byte) input);
+        flush();
+    }
+
+    /**
+     * Writes the bytes waiting to be sent, as many as the socket takes without blocking.
+     * The rest is kept at the start of the buffer, ready for the next input to be written after it.
+     * @throws IOException if the connection is broken
+     */
+    private void flush() throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+    }
+
+    /**
+     * Plays the input of the player on a game, the way the server does.
+     * @param game The game
+     * @param input The direction pressed, or NO_INPUT
+     */
+    private void play(Game game, char input) {
+        if (role == Protocol.GHOST) {
+            if (input != Game.NO_INPUT)
+                ghostDirection = input;
+            if (ghostDirection != Game.NO_INPUT && ghost < game.ghosts.count)
+                game.controlGhost(ghost, ghostDirection);
+            game.step(Game.NO_INPUT);
+        } else if (role == Protocol.PACMAN) {
+            game.step(input);
+        } else {
+            game.step(Game.NO_INPUT);
+        }
+    }
+
+    /**
+     * Closes the connection, the game stops where it is.
+     */
+    public void close() {
+        connected = false;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // The connection is gone either way
+        }
+    }
+
+    /**
+     * Tells if the client is still connected to the server.
+     * @return True if connected
+     */
+    public boolean isConnected() {
+        return connected;
+    }
+
+    /**
+     * Get the last tick received from the server.
+     * @return the tick
+     */
+    public int getServerTick() {
+        return serverTick;
+    }
+
+    /**
+     * Get the number of inputs sent that the server has not played yet.
+     * @return the number of inputs
+     */
+    public int getPendingInputs() {
+        return inputCount;
+    }
+
+    /**
+     * Get the number of bytes received from the server so far.
+     * @return the number of bytes
+     */
+    public long getBytesReceived() {
+        return bytesReceived;
+    }
+
+    /**
+     * Get the game as the server last sent it.
+     * @return the game
+     */
+    Game getServerGame() {
+        return server;
+    }
+}
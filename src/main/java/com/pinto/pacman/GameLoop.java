@@ -0,0 +1,225 @@
+package com.pinto.pacman;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * GameLoop runs a game on its own thread with a fixed time step.
+ * The simulation advances by whole ticks at a fixed rate, while frames are rendered as often as the frame cap allows,
+ * with the fraction of the next tick already elapsed so that the renderer can interpolate the positions.
+ * After a stall the loop catches up with a bounded number of ticks and drops the rest, instead of falling further behind.
+ * <p>
+ * The loop measures its ticks, renders and frames, and the memory allocated by the ticks when the JVM can tell.
+ * A frame taking longer than its budget is recorded as a {@link FrameOverrunEvent} for Java Flight Recorder.
+ */
+public class GameLoop implements Runnable {
+
+    /**
+     * Listener is what the loop drives: a simulation to tick and a view to render.
+     */
+    public interface Listener {
+        /**
+         * Tells if the game is running. The loop sleeps while it is not, until {@link #wakeUp()} is called.
+         * @return True if the game must be ticked, false if it is paused or over
+         */
+        boolean isActive();
+
+        /**
+         * Advances the simulation by one tick.
+         */
+        void tick();
+
+        /**
+         * Renders a frame.
+         * @param alpha Fraction of the next tick already elapsed, between 0 and 1
+         */
+        void render(double alpha);
+    }
+
+    // Ticks run in one frame before the loop drops the time it is late by
+    private static final int MAX_TICKS_PER_FRAME = 5;
+    // Longest time taken into account between two frames, longer stalls are ignored
+    private static final long MAX_FRAME_NANOS = 250_000_000L;
+
+    private final Listener listener;
+    private final long tickNanos;
+    private final long frameNanos;
+    private final FrameStats tickTimes = new FrameStats(1024);
+    private final FrameStats frameTimes = new FrameStats(1024);
+    private final FrameStats renderTimes = new FrameStats(1024);
+    private final FrameStats tickAllocations = new FrameStats(1024);
+    // Counts the bytes allocated by the loop thread, null if the JVM does not support it
+    private final com.sun.management.ThreadMXBean threads;
+
+    private volatile boolean running = false;
+
+    /**
+     * Constructor for the GameLoop class.
+     * @param listener The game to tick and render
+     * @param ticksPerSecond Number of ticks per second
+     * @param maxFramesPerSecond Maximum number of frames per second, 0 for no cap
+     */
+    GameLoop(Listener listener, int ticksPerSecond, int maxFramesPerSecond) {
+        this.listener = listener;
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+        this.frameNanos = maxFramesPerSecond > 0 ? 1_000_000_000L / maxFramesPerSecond : 0;
+        this.threads = allocationCounter();
+    }
+
+    /**
+     * Get the bean counting the memory allocated by each thread.
+     * @return the bean, or null if the JVM does not support it
+     */
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+
+    /**
+     * Starts the loop on a new daemon thread.
+     */
+    public synchronized void start() {
+        if (running)
+            return;
+
+        running = true;
+        Thread thread = new Thread(this, "Game Loop");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Stops the loop. The current tick or frame is finished first, and no frame is rendered afterward.
+     * A loop waiting for the game to become active wakes up, a loop waiting for its next frame stops within a frame.
+     */
+    public synchronized void stop() {
+        running = false;
+        notifyAll();
+    }
+
+    /**
+     * Wakes the loop up after the game has become active again.
+     */
+    public synchronized void wakeUp() {
+        notifyAll();
+    }
+
+    /**
+     * Waits while the game is not active.
+     * @return True if the loop had to wait, false if the game was already active
+     */
+    private synchronized boolean waitUntilActive() throws InterruptedException {
+        boolean waited = false;
+        while (running && !listener.isActive()) {
+            wait();
+            waited = true;
+        }
+        return waited;
+    }
+
+    @Override
+    public void run() {
+        long previous = System.nanoTime();
+        long lag = 0;
+
+        try {
+            while (running) {
+                boolean waited = waitUntilActive();
+                // The loop was stopped while it was waiting
+                if (!running)
+                    break;
+                if (waited) {
+                    // The time spent paused must not be caught up
+                    previous = System.nanoTime();
+                    lag = 0;
+                }
+
+                long frameStart = System.nanoTime();
+                long elapsed = frameStart - previous;
+                previous = frameStart;
+                frameTimes.record(elapsed);
+                lag += Math.min(elapsed, MAX_FRAME_NANOS);
+
+                int ticks = 0;
+                while (lag >= tickNanos && ticks < MAX_TICKS_PER_FRAME && listener.isActive()) {
+                    long allocated = threads != null ? threads.getCurrentThreadAllocatedBytes() : 0;
+                    long tickStart = System.nanoTime();
+                    listener.tick();
+                    tickTimes.record(System.nanoTime() - tickStart);
+                    if (threads != null)
+                        tickAllocations.record(threads.getCurrentThreadAllocatedBytes() - allocated);
+                    lag -= tickNanos;
+                    ticks++;
+                }
+                // Too late to catch up, the remaining ticks are dropped
+                if (lag >= tickNanos)
+                    lag %= tickNanos;
+
+                // The loop was stopped during the ticks
+                if (!running)
+                    break;
+
+                long renderStart = System.nanoTime();
+                listener.render((double) lag / tickNanos);
+                long frameEnd = System.nanoTime();
+                renderTimes.record(frameEnd - renderStart);
+
+                // Without a frame cap, a frame is late when it takes longer than a tick
+                long budget = frameNanos > 0 ? frameNanos : tickNanos;
+                if (frameEnd - frameStart > budget) {
+                    FrameOverrunEvent event = new FrameOverrunEvent();
+                    if (event.shouldCommit()) {
+                        event.frameTime = frameEnd - frameStart;
+                        event.budget = budget;
+                        event.ticks = ticks;
+                        event.commit();
+                    }
+                }
+
+                if (frameNanos > 0) {
+                    long sleep = frameStart + frameNanos - System.nanoTime();
+                    if (sleep > 0)
+                        LockSupport.parkNanos(sleep);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Get the durations of the ticks of the simulation.
+     * @return the tick times
+     */
+    public FrameStats getTickTimes() {
+        return tickTimes;
+    }
+
+    /**
+     * Get the durations between two rendered frames.
+     * @return the frame times
+     */
+    public FrameStats getFrameTimes() {
+        return frameTimes;
+    }
+
+    /**
+     * Get the durations of the renders of the frames.
+     * @return the render times
+     */
+    public FrameStats getRenderTimes() {
+        return renderTimes;
+    }
+
+    /**
+     * Get the number of bytes allocated by each tick.
+     * @return the allocations, empty if the JVM cannot count them
+     */
+    public FrameStats getTickAllocations() {
+        return tickAllocations;
+    }
+}
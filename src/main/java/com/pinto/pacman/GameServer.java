@@ -0,0 +1,543 @@
+package com.pinto.pacman;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * GameServer runs the games of several rooms, each played by one Pac-Man player and ghost players,
+ * and sends the state of each game to its players on every tick.
+ * <p>
+ * The server is the only one to step the games. It runs on a single thread, with non-blocking sockets on a selector:
+ * between two ticks it reads the inputs of the players, and on each tick it plays one input per player,
+ * steps every room once and writes the difference of each room once, sent to all of its players.
+ * A player that cannot keep up has its differences skipped until it has read what it was sent,
+ * then gets a snapshot of the whole game.
+ */
+public class GameServer implements Runnable {
+    // Board of the games, the same as the window of Main
+    private static final int ROW_COUNT = 21;
+    private static final int COLUMN_COUNT = 19;
+    private static final int TILE_SIZE = 32;
+    // Inputs of a player waiting for their tick, the oldest are dropped when a client runs ahead of the server
+    private static final int MAX_PENDING_INPUTS = 8;
+    // Bytes waiting to be sent to a player before its differences are skipped
+    private static final int OUTPUT_CAPACITY = 1 << 16;
+    // Time a lost game is shown before the room plays again, in seconds
+    private static final int RESTART_SECONDS = 3;
+    // Ticks run at once before the server drops the time it is late by
+    private static final int MAX_TICKS_LATE = 5;
+
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final int ticksPerSecond;
+    private final long tickNanos;
+    private final HashMap<String, Room> rooms = new HashMap<>();
+    private final Random seeds = new Random();
+    private int nextPlayerId = 1;
+    private volatile boolean running = true;
+
+    // Message written once per room and tick, sent to each of its players
+    private final ByteBuffer message = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE);
+    private final FrameStats tickTimes = new FrameStats(1024);
+    private volatile int playerCount = 0;
+    private volatile long bytesSent = 0;
+
+    /**
+     * Constructor for the GameServer class.
+     * @param address The address to listen on
+     * @param ticksPerSecond Number of ticks per second of the games
+     * @throws IOException if the address cannot be listened on
+     * @throws IllegalArgumentException if the games cannot run at this tick rate
+     */
+    GameServer(InetSocketAddress address, int ticksPerSecond) throws IOException {
+        Game.checkTickRate(TILE_SIZE, ticksPerSecond);
+        this.ticksPerSecond = ticksPerSecond;
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+    }
+
+    /**
+     * Get the port the server listens on, such as when it was bound to any free port.
+     * @return the port
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    /**
+     * Runs the server until it is stopped.
+     */
+    @Override
+    public void run() {
+        long nextTick = System.nanoTime();
+        try {
+            while (running) {
+                long wait = nextTick - System.nanoTime();
+                if (wait > 0)
+                    selector.select(Math.max(1, wait / 1_000_000));
+                else
+                    selector.selectNow();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+
+                long now = System.nanoTime();
+                if (now - nextTick >= 0) {
+                    tick();
+                    nextTick += tickNanos;
+                    if (now - nextTick > MAX_TICKS_LATE * tickNanos)
+                        nextTick = now;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("The server stopped", e);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Stops the server, closing the connections of the players.
+     */
+    public void stop() {
+        running = false;
+        selector.wakeup();
+    }
+
+    /**
+     * Accepts a connection, reads the messages of a player or sends what it is waiting for.
+     * @param key The key of the channel ready
+     * @throws IOException if a connection cannot be accepted
+     */
+    private void handle(SelectionKey key) throws IOException {
+        if (!key.isValid())
+            return;
+
+        if (key.isAcceptable()) {
+            SocketChannel channel = server.accept();
+            if (channel == null)
+                return;
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            channel.register(selector, SelectionKey.OP_READ, new Player(channel, nextPlayerId++));
+            return;
+        }
+
+        Player player = (Player) key.attachment();
+        try {
+            if (key.isReadable())
+                read(player);
+            if (key.isValid() && key.isWritable())
+                flush(player);
+        } catch (IOException | RuntimeException e) {
+            // A broken connection or a malformed message only costs its own player
+            disconnect(player);
+        }
+    }
+
+    /**
+     * Reads the messages of a player.
+     * @param player The player
+     * @throws IOException if the connection is closed or broken
+     */
+    private void read(Player player) throws IOException {
+        ByteBuffer in = player.in;
+        if (player.channel.read(in) < 0)
+            throw new IOException("Connection closed");
+
+        in.flip();
+        while (in.remaining() >= 4) {
+            int length = in.getInt(in.position());
+            if (length <= 0 || length > in.capacity() - 4)
+                throw new IOException("Frame of " + length + " bytes");
+            if (in.remaining() < 4 + length)
+                break;
+
+            int end = in.position() + 4 + length;
+            in.getInt();
+            // A message is read from its own frame, so that a wrong length inside it cannot read past the frame
+            ByteBuffer frame = in.slice(in.position(), end - in.position());
+            switch (frame.get()) {
+                case Protocol.JOIN -> join(player, Protocol.getString(frame), frame.get());
+                case Protocol.INPUT -> player.offerInput(frame.getInt(), (char) frame.get());
+                default -> throw new IOException("Unknown message");
+            }
+            in.position(end);
+        }
+        in.compact();
+    }
+
+    /**
+     * Puts a player in a room, the room is created if it does not exist.
+     * The player gets the role asked for if it is free, else the first free ghost, else it watches the game.
+     * @param player The player
+     * @param name The name of the room
+     * @param role The role asked for
+     * @throws IOException if the connection is broken
+     */
+    private void join(Player player, String name, int role) throws IOException {
+        if (player.room != null)
+            return;
+
+        Room room = rooms.computeIfAbsent(name, Room::new);
+        if (role == Protocol.PACMAN && room.pacman == null) {
+            room.pacman = player;
+        } else if (role != Protocol.SPECTATOR) {
+            role = Protocol.SPECTATOR;
+            for (int ghost = 0; ghost < room.game.ghosts.count && role == Protocol.SPECTATOR; ghost++) {
+                if (room.getGhostPlayer(ghost) == null) {
+                    role = Protocol.GHOST;
+                    player.ghost = ghost;
+                }
+            }
+        }
+        player.role = role;
+        player.room = room;
+        room.players.add(player);
+        playerCount++;
+
+        ByteBuffer out = player.out;
+        Protocol.putHeader(out, Protocol.WELCOME, 4 + 1 + 4 + 3 * 4 + 4 + 8);
+        out.putInt(player.id);
+        out.put((byte) role);
+        out.putInt(player.ghost);
+        out.putInt(ROW_COUNT);
+        out.putInt(COLUMN_COUNT);
+        out.putInt(TILE_SIZE);
+        out.putInt(ticksPerSecond);
+        out.putLong(room.seed);
+        flush(player);
+        // The game is sent whole on the next tick
+        player.needsSnapshot = true;
+    }
+
+    /**
+     * Plays one tick of every room and sends it to the players.
+     */
+    private void tick() {
+        long start = System.nanoTime();
+        // Iterating over a copy, a room whose last player leaves is removed
+        for (Room room : rooms.values().toArray(new Room[0])) {
+            room.tick();
+        }
+        tickTimes.record(System.nanoTime() - start);
+    }
+
+    /**
+     * Writes a message for a player, and tries to send it right away.
+     * A message that does not fit with the bytes still waiting is dropped, and the player will get a snapshot instead.
+     * @param player The player
+     * @param message The message, from its position to its limit
+     * @return True if the message was written, false if it was dropped
+     */
+    private boolean send(Player player, ByteBuffer message) {
+        if (player.out.remaining() < message.remaining()) {
+            player.needsSnapshot = true;
+            return false;
+        }
+        player.out.put(message);
+        try {
+            flush(player);
+        } catch (IOException e) {
+            disconnect(player);
+        }
+        return true;
+    }
+
+    /**
+     * Sends the bytes waiting for a player, and asks the selector to tell when more can be sent if some are left.
+     * @param player The player
+     * @throws IOException if the connection is broken
+     */
+    private void flush(Player player) throws IOException {
+        ByteBuffer out = player.out;
+        out.flip();
+        bytesSent += player.channel.write(out);
+        out.compact();
+
+        SelectionKey key = player.channel.keyFor(selector);
+        if (key != null && key.isValid())
+            key.interestOps(out.position() > 0 ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    /**
+     * Closes the connection of a player and frees its role. A room left empty is closed.
+     * @param player The player
+     */
+    private void disconnect(Player player) {
+        try {
+            player.channel.close();
+        } catch (IOException ignored) {
+            // The connection is gone either way
+        }
+
+        Room room = player.room;
+        if (room == null || !room.players.remove(player))
+            return;
+        playerCount--;
+        if (room.pacman == player)
+            room.pacman = null;
+        if (player.role == Protocol.GHOST && player.ghost < room.game.ghosts.count)
+            room.game.controlGhost(player.ghost, Game.NO_INPUT);
+        if (room.players.isEmpty())
+            rooms.remove(room.name);
+    }
+
+    /**
+     * Closes the connections and the server.
+     */
+    private void close() {
+        for (SelectionKey key : selector.keys()) {
+            try {
+                key.channel().close();
+            } catch (IOException ignored) {
+                // Closing anyway
+            }
+        }
+        try {
+            selector.close();
+        } catch (IOException ignored) {
+            // Closing anyway
+        }
+    }
+
+    /**
+     * Get the durations of the ticks of all the rooms.
+     * @return the tick times
+     */
+    public FrameStats getTickTimes() {
+        return tickTimes;
+    }
+
+    /**
+     * Get the number of players connected to a room.
+     * @return the number of players
+     */
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Get the number of bytes sent to the players so far.
+     * @return the number of bytes
+     */
+    public long getBytesSent() {
+        return bytesSent;
+    }
+
+    /**
+     * Room is a game with its players.
+     */
+    private class Room {
+        final String name;
+        final long seed = seeds.nextLong();
+        final Game game;
+        final StateSync sync;
+        final ArrayList<Player> players = new ArrayList<>();
+        Player pacman;
+        int tick = 0;
+        int gameOverTicks = 0;
+        // Snapshot of the game at the current tick, written for the first player needing it
+        private final ByteBuffer snapshot = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE);
+        private int snapshotTick = -1;
+
+        /**
+         * Constructor for the Room class.
+         * @param name The name of the room
+         */
+        Room(String name) {
+            this.name = name;
+            this.game = new Game(COLUMN_COUNT * TILE_SIZE, ROW_COUNT * TILE_SIZE, TILE_SIZE, new Random(seed), 1, ticksPerSecond);
+            game.recordEvents = false;
+            this.sync = new StateSync(game);
+        }
+
+        /**
+         * Get the player steering a ghost.
+         * @param ghost The index of the ghost
+         * @return the player, or null if the ghost is moved by the game
+         */
+        Player getGhostPlayer(int ghost) {
+            for (Player player : players) {
+                if (player.role == Protocol.GHOST && player.ghost == ghost)
+                    return player;
+            }
+            return null;
+        }
+
+        /**
+         * Plays the next input of each player, steps the game and sends the tick to the players.
+         */
+        void tick() {
+            char input = Game.NO_INPUT;
+            for (Player player : players) {
+                char direction = player.pollInput();
+                if (player == pacman) {
+                    input = direction;
+                } else if (player.role == Protocol.GHOST && player.ghost < game.ghosts.count) {
+                    // A ghost keeps going where its player last asked, even on a new level
+                    if (direction != Game.NO_INPUT)
+                        player.direction = direction;
+                    if (player.direction != Game.NO_INPUT)
+                        game.controlGhost(player.ghost, player.direction);
+                }
+            }
+
+            if (game.gameOver && ++gameOverTicks >= RESTART_SECONDS * ticksPerSecond) {
+                game.restart();
+                gameOverTicks = 0;
+            }
+            game.step(input);
+            tick++;
+
+            // The difference is written once, only the last input played differs from a player to another
+            message.clear();
+            message.position(Protocol.FRAME_HEADER_SIZE + 8);
+            boolean delta = sync.writeDelta(message);
+            int length = message.position() - Protocol.FRAME_HEADER_SIZE;
+            message.flip();
+            Protocol.putHeader(message, Protocol.DELTA, length);
+            message.putInt(Protocol.FRAME_HEADER_SIZE, tick);
+
+            // Iterating over a copy, a player whose connection breaks leaves the room
+            for (Player player : players.toArray(new Player[0])) {
+                if (!delta)
+                    player.needsSnapshot = true;
+                if (player.needsSnapshot) {
+                    // Only once the player has read everything else, so that it does not overflow again
+                    if (player.out.position() == 0 && send(player, getSnapshot(player.ack)))
+                        player.needsSnapshot = false;
+                } else {
+                    message.putInt(Protocol.FRAME_HEADER_SIZE + 4, player.ack);
+                    send(player, message.position(0));
+                }
+            }
+        }
+
+        /**
+         * Get the snapshot message of the current tick.
+         * @param ack The last input played of the player it is sent to
+         * @return the message, from its position to its limit
+         */
+        private ByteBuffer getSnapshot(int ack) {
+            if (snapshotTick != tick) {
+                snapshot.clear();
+                Protocol.putHeader(snapshot, Protocol.FULL, 8 + game.getSnapshotSize());
+                snapshot.putInt(tick);
+                snapshot.putInt(0);
+                game.snapshot(snapshot);
+                snapshot.flip();
+                snapshotTick = tick;
+            }
+            snapshot.putInt(Protocol.FRAME_HEADER_SIZE + 4, ack);
+            return snapshot.position(0);
+        }
+    }
+
+    /**
+     * Player is the connection of a client, with the inputs it sent that are not played yet.
+     */
+    private static class Player {
+        final SocketChannel channel;
+        final int id;
+        final ByteBuffer in = ByteBuffer.allocate(256);
+        final ByteBuffer out = ByteBuffer.allocate(OUTPUT_CAPACITY);
+        Room room;
+        int role = Protocol.SPECTATOR;
+        int ghost = -1;
+        // Last direction asked by a ghost player
+        char direction = Game.NO_INPUT;
+        boolean needsSnapshot = true;
+
+        // Inputs waiting for their tick, in a ring
+        private final int[] inputNumbers = new int[MAX_PENDING_INPUTS];
+        private final char[] inputDirections = new char[MAX_PENDING_INPUTS];
+        private int firstInput = 0;
+        private int inputCount = 0;
+        // Number of the last input played, sent back so that the client knows which of its inputs to play again
+        int ack = 0;
+
+        /**
+         * Constructor for the Player class.
+         * @param channel The connection of the client
+         * @param id The id of the player
+         */
+        Player(SocketChannel channel, int id) {
+            this.channel = channel;
+            this.id = id;
+        }
+
+        /**
+         * Adds an input sent by the client, dropping the oldest one if too many are waiting.
+         * @param number The number of the input
+         * @param direction The direction pressed, or NO_INPUT
+         */
+        void offerInput(int number, char direction) {
+            if (inputCount == MAX_PENDING_INPUTS) {
+                firstInput = (firstInput + 1) % MAX_PENDING_INPUTS;
+                inputCount--;
+            }
+            int slot = (firstInput + inputCount) % MAX_PENDING_INPUTS;
+            inputNumbers[slot] = number;
+            inputDirections[slot] = direction;
+            inputCount++;
+        }
+
+        /**
+         * Takes the input to play on this tick.
+         * @return the direction, or NO_INPUT if the client sent nothing
+         */
+        char pollInput() {
+            if (inputCount == 0)
+                return Game.NO_INPUT;
+            ack = inputNumbers[firstInput];
+            char direction = inputDirections[firstInput];
+            firstInput = (firstInput + 1) % MAX_PENDING_INPUTS;
+            inputCount--;
+            return direction;
+        }
+    }
+
+    /**
+     * Runs a server until the process is stopped, reporting its load every ten seconds.
+     * Arguments: the port and the number of ticks per second, both optional.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Protocol.DEFAULT_PORT;
+        int ticksPerSecond = args.length > 1 ? Integer.parseInt(args[1]) : Game.DEFAULT_TICKS_PER_SECOND;
+
+        GameServer server = new GameServer(new InetSocketAddress(port), ticksPerSecond);
+        Thread thread = new Thread(server, "Game server");
+        thread.start();
+        System.out.printf("Listening on port %d at %d ticks per second%n", server.getPort(), ticksPerSecond);
+
+        long bytes = 0;
+        while (thread.isAlive()) {
+            thread.join(10_000);
+            long sent = server.getBytesSent();
+            int players = server.getPlayerCount();
+            FrameStats ticks = server.getTickTimes();
+            System.out.printf("%d players, tick %.3f ms (p99 %.3f ms), %,.0f bytes/s per player%n", players,
+                    ticks.mean() / 1e6, ticks.percentile(99) / 1e6, players == 0 ? 0.0 : (sent - bytes) / 10.0 / players);
+            bytes = sent;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.pinto.pacman;
+
+/**
+ * GhostMode is what the ghosts are doing: heading to their corner, hunting Pac-Man or running away from it.
+ */
+public enum GhostMode {
+    SCATTER,
+    CHASE,
+    FRIGHTENED
+}
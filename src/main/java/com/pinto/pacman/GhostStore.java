@@ -0,0 +1,143 @@
+package com.pinto.pacman;
+
+import java.util.Arrays;
+
+/**
+ * GhostStore keeps the ghosts of a level as parallel arrays of primitives, one entry per ghost in the order of the map.
+ * Updating thousands of ghosts walks a few contiguous arrays instead of objects spread over the heap, without allocating.
+ * <p>
+ * Every ghost has its own random generator, so that ghosts can be updated in any order, or in parallel,
+ * and still make the same choices for a given seed.
+ */
+public class GhostStore {
+    private static final Sprite[] SPRITES = Sprite.values();
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    int count = 0;
+    int[] x;
+    int[] y;
+    // Position before the last tick, used to interpolate the rendering between two ticks
+    int[] previousX;
+    int[] previousY;
+    int[] startX;
+    int[] startY;
+    int[] velocityX;
+    int[] velocityY;
+    // Index of the direction, from NavGraph.UP to NavGraph.RIGHT
+    byte[] direction;
+    // Ordinal of the sprite, which tells the color of the ghost
+    byte[] sprite;
+    boolean[] scared;
+    // Index of the direction asked by the player steering the ghost, -1 for a ghost moved by the game
+    byte[] control;
+    // State of the random generator of each ghost
+    long[] random;
+
+    /**
+     * Constructor for the GhostStore class.
+     * @param capacity Number of ghosts the store holds before growing
+     */
+    GhostStore(int capacity) {
+        capacity = Math.max(capacity, 4);
+        x = new int[capacity];
+        y = new int[capacity];
+        previousX = new int[capacity];
+        previousY = new int[capacity];
+        startX = new int[capacity];
+        startY = new int[capacity];
+        velocityX = new int[capacity];
+        velocityY = new int[capacity];
+        direction = new byte[capacity];
+        sprite = new byte[capacity];
+        scared = new boolean[capacity];
+        control = new byte[capacity];
+        random = new long[capacity];
+    }
+
+    /**
+     * Adds a ghost, standing still and facing up.
+     * @param ghostSprite The sprite of the ghost
+     * @param ghostX The x-coordinate of the ghost
+     * @param ghostY The y-coordinate of the ghost
+     * @param seed The seed of the random generator of the ghost
+     * @return the index of the ghost
+     */
+    public int add(Sprite ghostSprite, int ghostX, int ghostY, long seed) {
+        if (count == x.length)
+            grow(count * 2);
+
+        int ghost = count++;
+        x[ghost] = ghostX;
+        y[ghost] = ghostY;
+        previousX[ghost] = ghostX;
+        previousY[ghost] = ghostY;
+        startX[ghost] = ghostX;
+        startY[ghost] = ghostY;
+        velocityX[ghost] = 0;
+        velocityY[ghost] = 0;
+        direction[ghost] = NavGraph.UP;
+        sprite[ghost] = (byte) ghostSprite.ordinal();
+        scared[ghost] = false;
+        control[ghost] = -1;
+        random[ghost] = seed;
+        return ghost;
+    }
+
+    /**
+     * Removes every ghost, keeping the arrays for the ghosts added next.
+     */
+    public void clear() {
+        count = 0;
+    }
+
+    /**
+     * Get the sprite of a ghost.
+     * @param ghost The index of the ghost
+     * @return the sprite
+     */
+    public Sprite getSprite(int ghost) {
+        return SPRITES[sprite[ghost]];
+    }
+
+    /**
+     * Draws a random number from the generator of a ghost (SplitMix64).
+     * @param ghost The index of the ghost
+     * @param bound The upper bound (exclusive), must be positive
+     * @return a random number between 0 and bound - 1
+     */
+    public int nextRandom(int ghost, int bound) {
+        long z = (random[ghost] += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        return (int) ((z >>> 33) % bound);
+    }
+
+    /**
+     * Remembers the current positions as the positions before the tick.
+     */
+    public void savePositions() {
+        System.arraycopy(x, 0, previousX, 0, count);
+        System.arraycopy(y, 0, previousY, 0, count);
+    }
+
+    /**
+     * Makes the arrays larger.
+     * @param capacity The new number of ghosts the store can hold
+     */
+    private void grow(int capacity) {
+        x = Arrays.copyOf(x, capacity);
+        y = Arrays.copyOf(y, capacity);
+        previousX = Arrays.copyOf(previousX, capacity);
+        previousY = Arrays.copyOf(previousY, capacity);
+        startX = Arrays.copyOf(startX, capacity);
+        startY = Arrays.copyOf(startY, capacity);
+        velocityX = Arrays.copyOf(velocityX, capacity);
+        velocityY = Arrays.copyOf(velocityY, capacity);
+        direction = Arrays.copyOf(direction, capacity);
+        sprite = Arrays.copyOf(sprite, capacity);
+        scared = Arrays.copyOf(scared, capacity);
+        control = Arrays.copyOf(control, capacity);
+        random = Arrays.copyOf(random, capacity);
+    }
+}
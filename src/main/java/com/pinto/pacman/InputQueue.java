@@ -0,0 +1,68 @@
+package com.pinto.pacman;
+
+/**
+ * InputQueue passes the directions pressed by the player from the event dispatch thread to the game loop,
+ * with the time each key was handled.
+ * It is a ring buffer for a single producer and a single consumer: each side only writes its own index,
+ * published through a volatile field, so neither side ever waits for the other or allocates.
+ */
+public class InputQueue {
+    // Must be a power of two
+    private static final int CAPACITY = 16;
+
+    private final char[] directions = new char[CAPACITY];
+    private final long[] times = new long[CAPACITY];
+    // Next input to read, only written by the consumer
+    private volatile int head = 0;
+    // Next slot to write, only written by the producer
+    private volatile int tail = 0;
+
+    /**
+     * Adds an input, from the producer thread. Inputs are dropped when the queue is full.
+     * @param direction The direction pressed, 'U', 'D', 'L' or 'R'
+     * @param time The time the key was handled, from System.nanoTime()
+     * @return True if the input was added, false if the queue is full
+     */
+    public boolean offer(char direction, long time) {
+        int slot = tail;
+        if (slot - head == CAPACITY)
+            return false;
+
+        directions[slot & (CAPACITY - 1)] = direction;
+        times[slot & (CAPACITY - 1)] = time;
+        // Writing the index publishes the input to the consumer
+        tail = slot + 1;
+        return true;
+    }
+
+    /**
+     * Tells if there is no input to read, from the consumer thread.
+     * @return True if the queue is empty
+     */
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    /**
+     * Get the direction of the oldest input, from the consumer thread. The queue must not be empty.
+     * @return the direction
+     */
+    public char peekDirection() {
+        return directions[head & (CAPACITY - 1)];
+    }
+
+    /**
+     * Get the time of the oldest input, from the consumer thread. The queue must not be empty.
+     * @return the time the key was handled, from System.nanoTime()
+     */
+    public long peekTime() {
+        return times[head & (CAPACITY - 1)];
+    }
+
+    /**
+     * Removes the oldest input, from the consumer thread. The queue must not be empty.
+     */
+    public void remove() {
+        head = head + 1;
+    }
+}
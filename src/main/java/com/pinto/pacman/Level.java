@@ -0,0 +1,238 @@
+package com.pinto.pacman;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+public class Level {
+    //X = wall, O = skip, P = pac man, ' ' = food
+    //Ghosts: b = blue, o = orange, p = pink, r = red
+    // F = power food
+
+    public static final String[] LEVEL_1 = {
+            "XXXXXXXXXXXXXXXXXXX",
+            "X        X        X",
+            "X XX XXX X XXX XX X",
+            "X        F        X",
+            "X XX X XXXXX X XX X",
+            "X    X       X    X",
+            "XXXX XXXX XXXX XXXX",
+            "OOOX X       X XOOO",
+            "XXXX X XXrXX X XXXX",
+            "O       bpo       O",
+            "XXXX X XXXXX X XXXX",
+            "OOOX X       X XOOO",
+            "XXXX X XXXXX X XXXX",
+            "X        X        X",
+            "X XX XXX X XXX XX X",
+            "X  X     P     X  X",
+            "XX X X XXXXX X X XX",
+            "X    X   X   X    X",
+            "X XXXXXX X XXXXXX X",
+            "X                 X",
+            "XXXXXXXXXXXXXXXXXXX"
+    };
+
+    public static final String[] LEVEL_2 = {
+            "XXXXXXXXXOXXXXXXXXX",
+            "X                 X",
+            "X XX XXX X XXX XX X",
+            "X        F        X",
+            "X XX X XXXXX X XX X",
+            "X    X       X    X",
+            "XXXX XXXX XXXX XXXX",
+            "OOOX X       X XOOO",
+            "XXXX X XXrXX X XXXX",
+            "O       bpo       O",
+            "XXXX X XXXXX X XXXX",
+            "OOOX X       X XOOO",
+            "XXXX X XXXXX X XXXX",
+            "X        X        X",
+            "X XX XXX X XXX XX X",
+            "X  X     P     X  X",
+            "XX X X XXXXX X X XX",
+            "X    X   X   X    X",
+            "X XXXXXX X XXXXXX X",
+            "X                 X",
+            "XXXXXXXXXOXXXXXXXXX"
+    };
+
+    public static final String[] LEVEL_3 = {
+            "XXXXXXXXXOXXXXXXXXX",
+            "X  X           X  X",
+            "X XX XXX X XXX XX X",
+            "X                 X",
+            "X XXXX XX  X XXXX X",
+            "X      X F X      X",
+            "XXXX XXX  XXXX XXXX",
+            "OOOX X       X XOOO",
+            "XXXX X XXrXX X XXXX",
+            "O       bpo       O",
+            "XXXX X XXXXX X XXXX",
+            "OOOX X       X XOOO",
+            "XXXX X XXXXX X XXXX",
+            "X        X        X",
+            "X XX XXX X XXX XX X",
+            "X  X     P     X  X",
+            "XX X X XXXXX X X XX",
+            "X    X   X   X    X",
+            "X XXXXXX X XXXXXX X",
+            "X                 X",
+            "XXXXXXXXXOXXXXXXXXX"
+    };
+
+
+
+    private static final LevelData[] LEVEL_DATA = {LevelData.of(LEVEL_1), LevelData.of(LEVEL_2), LevelData.of(LEVEL_3)};
+    // Graphs of the levels compiled by LevelCompiler when the game was built, read on first use
+    private static final NavGraph[] COMPILED_GRAPHS = new NavGraph[LEVEL_DATA.length];
+    private static final boolean[] COMPILED_GRAPHS_READ = new boolean[LEVEL_DATA.length];
+
+    /**
+     * Get the level layout based on the level number.
+     * @param level the level number (1 to 3)
+     * @return the level layout as a String array
+     */
+    public static String[] getLevel(int level) {
+        return switch (level) {
+            case 1 -> LEVEL_1;
+            case 2 -> LEVEL_2;
+            case 3 -> LEVEL_3;
+            default -> LEVEL_1; // Default to level 1 if the level is not recognized
+        };
+    }
+
+    /**
+     * Get the tiles of a level based on the level number.
+     * @param level the level number (1 to 3)
+     * @return the level tiles, built once for every level
+     */
+    public static LevelData getLevelData(int level) {
+        return level >= 1 && level <= LEVEL_DATA.length ? LEVEL_DATA[level - 1] : LEVEL_DATA[0];
+    }
+
+    /**
+     * Get the path of the compiled graph of a level, among the resources of the class.
+     * @param level the level number (1 to 3)
+     * @return the path, relative to the package
+     */
+    static String getCompiledGraphPath(int level) {
+        return "levels/level" + level + ".nav";
+    }
+
+    /**
+     * Get the graph compiled when the game was built for a level with the same walls as a stock level,
+     * with the distances between its tiles. The graph only depends on the walls, so it fits any such level.
+     * @param walls the walls of the level on the board it is played on
+     * @return the compiled graph, or null if no stock level has these walls or the levels were not compiled
+     */
+    static synchronized NavGraph getCompiledGraph(WallGrid walls) {
+        for (int i = 0; i < LEVEL_DATA.length; i++) {
+            if (!COMPILED_GRAPHS_READ[i]) {
+                COMPILED_GRAPHS_READ[i] = true;
+                COMPILED_GRAPHS[i] = readCompiledGraph(i + 1);
+            }
+            NavGraph graph = COMPILED_GRAPHS[i];
+            if (graph != null && graph.matches(walls))
+                return graph;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the compiled graph of a level from the resources.
+     * @param level the level number (1 to 3)
+     * @return the graph, or null if the level was not compiled, such as when the game is run without being built
+     */
+    private static NavGraph readCompiledGraph(int level) {
+        String path = getCompiledGraphPath(level);
+        try (InputStream in = Level.class.getResourceAsStream(path)) {
+            if (in == null)
+                return null;
+            return NavGraph.read(new DataInputStream(new BufferedInputStream(in)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unreadable compiled level " + path, e);
+        }
+    }
+
+    /**
+     * Get the number of levels.
+     * @return the number of level layouts
+     */
+    public static int getLevelCount() {
+        return LEVEL_DATA.length;
+    }
+
+    /**
+     * Generate a synthetic maze, used to measure the game on large boards.
+     * Walls are placed on a grid of pillars with some random extra walls, Pac-Man starts
+     * in the top left corner and the four ghosts start in the middle of the maze.
+     * @param rows the number of rows of the maze (at least 11)
+     * @param columns the number of columns of the maze (at least 11)
+     * @param seed the seed used to place the extra walls
+     * @return the maze layout as a String array
+     */
+    public static String[] generateMaze(int rows, int columns, long seed) {
+        return generateMaze(rows, columns, 4, seed);
+    }
+
+    /**
+     * Generate a synthetic maze with a given number of ghosts.
+     * The first four ghosts start in the middle of the maze, the other ones on random free tiles.
+     * @param rows the number of rows of the maze (at least 11)
+     * @param columns the number of columns of the maze (at least 11)
+     * @param ghostCount the number of ghosts, at most one per free tile
+     * @param seed the seed used to place the extra walls and ghosts
+     * @return the maze layout as a String array
+     */
+    public static String[] generateMaze(int rows, int columns, int ghostCount, long seed) {
+        java.util.Random random = new java.util.Random(seed);
+        char[][] tiles = new char[rows][columns];
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                boolean border = r == 0 || c == 0 || r == rows - 1 || c == columns - 1;
+                boolean pillar = r % 2 == 0 && c % 2 == 0;
+                // Extra walls only go between two pillars so that every odd tile stays reachable
+                boolean extra = (r % 2 == 0) != (c % 2 == 0) && random.nextInt(8) == 0;
+                tiles[r][c] = (border || pillar || extra) ? 'X' : ' ';
+            }
+        }
+
+        // Odd rows and columns are never walls, so the spawns are always free
+        int middleRow = (rows / 2) | 1;
+        int middleColumn = (columns / 2) | 1;
+        tiles[1][1] = 'P';
+
+        char[] ghosts = {'r', 'b', 'o', 'p'};
+        int[][] ghostSpawns = {
+                {middleRow, middleColumn},
+                {middleRow, middleColumn - 2},
+                {middleRow, middleColumn + 2},
+                {middleRow - 2, middleColumn}
+        };
+        int freeTiles = ((rows - 1) / 2) * ((columns - 1) / 2) - 1;
+        for (int i = 0; i < Math.min(ghostCount, freeTiles); i++) {
+            int r;
+            int c;
+            if (i < ghostSpawns.length) {
+                r = ghostSpawns[i][0];
+                c = ghostSpawns[i][1];
+            } else {
+                do {
+                    r = random.nextInt((rows - 1) / 2) * 2 + 1;
+                    c = random.nextInt((columns - 1) / 2) * 2 + 1;
+                } while (tiles[r][c] != ' ');
+            }
+            tiles[r][c] = ghosts[i % ghosts.length];
+        }
+
+        String[] maze = new String[rows];
+        for (int r = 0; r < rows; r++) {
+            maze[r] = new String(tiles[r]);
+        }
+        return maze;
+    }
+}
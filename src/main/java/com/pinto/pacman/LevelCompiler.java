@@ -0,0 +1,127 @@
+package com.pinto.pacman;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * LevelCompiler checks the stock levels and compiles their graphs, as a step of the Maven build.
+ * A level must be rectangular and made of the characters of {@link Level}, with a single Pac-Man,
+ * every dot and power food reachable from Pac-Man, and every tunnel on an edge of the board leading to a tile
+ * that can be walked on at the other edge. A broken level fails the build instead of the game.
+ * <p>
+ * The graph of each level, with the walking distance between every pair of tiles,
+ * is written among the classes, where {@link Level} reads it instead of building it on launch.
+ * Run it with {@code java -cp target/classes com.pinto.pacman.LevelCompiler target/classes}.
+ */
+public class LevelCompiler {
+    public static void main(String[] args) throws IOException {
+        Path output = Path.of(args.length > 0 ? args[0] : "target/classes");
+
+        List<String> errors = new ArrayList<>();
+        for (int level = 1; level <= Level.getLevelCount(); level++) {
+            errors.addAll(check("Level " + level, Level.getLevel(level)));
+        }
+        if (!errors.isEmpty())
+            throw new IllegalStateException("Broken levels:\n" + String.join("\n", errors));
+
+        for (int level = 1; level <= Level.getLevelCount(); level++) {
+            NavGraph graph = compile(Level.getLevelData(level));
+            Path file = output.resolve("com/pinto/pacman").resolve(Level.getCompiledGraphPath(level));
+            Files.createDirectories(file.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+                graph.write(out);
+            }
+            System.out.printf("Level %d: %dx%d tiles, %,d bytes%n",
+                    level, graph.getColumns(), graph.getRows(), Files.size(file));
+        }
+    }
+
+    /**
+     * Checks that a level can be played.
+     * @param name The name of the level, used in the errors
+     * @param tileMap The layout of the level, one String per row
+     * @return the errors found, empty if the level is fine
+     */
+    static List<String> check(String name, String[] tileMap) {
+        List<String> errors = new ArrayList<>();
+        if (tileMap.length == 0 || tileMap[0].isEmpty()) {
+            errors.add(name + ": the level is empty");
+            return errors;
+        }
+
+        // Rectangular, in known characters, with a single Pac-Man
+        int columns = tileMap[0].length();
+        int pacmen = 0;
+        for (int r = 0; r < tileMap.length; r++) {
+            String row = tileMap[r];
+            if (row.length() != columns)
+                errors.add(name + ": row " + r + " is " + row.length() + " tiles long instead of " + columns);
+            for (int c = 0; c < row.length(); c++) {
+                char tile = row.charAt(c);
+                if (LevelData.TILES.indexOf(tile) < 0)
+                    errors.add(name + ": unknown tile '" + tile + "' at row " + r + ", column " + c);
+                if (tile == 'P')
+                    pacmen++;
+            }
+        }
+        if (pacmen != 1)
+            errors.add(name + ": " + pacmen + " starts of Pac-Man instead of one");
+        if (!errors.isEmpty())
+            return errors;
+
+        // Tunnels come out on the other side of the board, which must not be a wall
+        int rows = tileMap.length;
+        for (int r = 0; r < rows; r++) {
+            if ((tileMap[r].charAt(0) == 'X') != (tileMap[r].charAt(columns - 1) == 'X'))
+                errors.add(name + ": the tunnel of row " + r + " leads into a wall");
+        }
+        for (int c = 0; c < columns; c++) {
+            if ((tileMap[0].charAt(c) == 'X') != (tileMap[rows - 1].charAt(c) == 'X'))
+                errors.add(name + ": the tunnel of column " + c + " leads into a wall");
+        }
+
+        // Every dot and power food can be reached from Pac-Man
+        LevelData levelData = LevelData.of(tileMap);
+        DistanceField fromPacman = new DistanceField(new NavGraph(walls(levelData)));
+        for (int tile = 0; tile < rows * columns; tile++) {
+            if (levelData.getTile(tile / columns, tile % columns) == 'P')
+                fromPacman.update(tile);
+        }
+        for (int tile = 0; tile < rows * columns; tile++) {
+            char food = levelData.getTile(tile / columns, tile % columns);
+            if ((food == ' ' || food == 'F') && fromPacman.distance(tile) == DistanceField.UNREACHABLE)
+                errors.add(name + ": the food at row " + tile / columns + ", column " + tile % columns + " cannot be reached");
+        }
+        return errors;
+    }
+
+    /**
+     * Compiles the graph of a level, with its table of distances, for a board of the size of the level.
+     * @param levelData The tiles of the level
+     * @return the graph
+     */
+    static NavGraph compile(LevelData levelData) {
+        return new NavGraph(walls(levelData)).withDistances();
+    }
+
+    /**
+     * Builds the walls of a level, on a board of the size of the level.
+     * @param levelData The tiles of the level
+     * @return the walls
+     */
+    private static WallGrid walls(LevelData levelData) {
+        WallGrid walls = new WallGrid(levelData.getRows(), levelData.getColumns(), 1);
+        for (int r = 0; r < levelData.getRows(); r++) {
+            for (int c = 0; c < levelData.getColumns(); c++) {
+                if (levelData.getTile(r, c) == 'X')
+                    walls.add(r, c);
+            }
+        }
+        return walls;
+    }
+}
@@ -0,0 +1,108 @@
+package com.pinto.pacman;
+
+import java.util.Arrays;
+
+/**
+ * LevelData is the layout of a level as one byte per tile, in the characters of {@link Level}.
+ * Tiles are indexed by {@code row * columns + column}. Rows shorter than the widest one are padded with 'O'.
+ */
+public class LevelData {
+    /**
+     * Characters a level can be made of.
+     */
+    public static final String TILES = " XOPFbopr";
+
+    private final int rows;
+    private final int columns;
+    private final byte[] tiles;
+    private final String hash;
+    // The level compiled for the board it was last played on
+    private volatile LevelTemplate template;
+
+    /**
+     * Constructor for the LevelData class.
+     * @param rows Number of rows of the level
+     * @param columns Number of columns of the level
+     * @param tiles The characters of the tiles, row after row
+     * @param hash The hash of the file the level was loaded from, null if it was not loaded from a file
+     */
+    LevelData(int rows, int columns, byte[] tiles, String hash) {
+        this.rows = rows;
+        this.columns = columns;
+        this.tiles = tiles;
+        this.hash = hash;
+    }
+
+    /**
+     * Builds a level from a layout with one String per row.
+     * @param tileMap The layout of the level
+     * @return the level
+     */
+    public static LevelData of(String[] tileMap) {
+        int columns = 0;
+        for (String row : tileMap) {
+            columns = Math.max(columns, row.length());
+        }
+
+        byte[] tiles = new byte[tileMap.length * columns];
+        Arrays.fill(tiles, (byte) 'O');
+        for (int r = 0; r < tileMap.length; r++) {
+            String row = tileMap[r];
+            for (int c = 0; c < row.length(); c++) {
+                tiles[r * columns + c] = (byte) row.charAt(c);
+            }
+        }
+        return new LevelData(tileMap.length, columns, tiles, null);
+    }
+
+    /**
+     * Get the character of a tile.
+     * @param row The row of the tile
+     * @param column The column of the tile
+     * @return the character of the tile
+     */
+    public char getTile(int row, int column) {
+        return (char) tiles[row * columns + column];
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Get the hash of the file the level was loaded from, which identifies the level in the level cache.
+     * @return the hash as hexadecimal digits, or null if the level was not loaded from a file
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    /**
+     * Get the level compiled for a board. It is compiled on first use and kept for the next games
+     * on a board of the same size.
+     * @param rows Number of rows of the board
+     * @param columns Number of columns of the board
+     * @param tileSize Size of each tile
+     * @return the compiled level
+     */
+    LevelTemplate getTemplate(int rows, int columns, int tileSize) {
+        LevelTemplate compiled = template;
+        if (compiled == null || !compiled.fits(rows, columns, tileSize)) {
+            compiled = new LevelTemplate(this, rows, columns, tileSize);
+            template = compiled;
+        }
+        return compiled;
+    }
+
+    /**
+     * Get the tiles of the level, row after row. The array must not be modified.
+     * @return the characters of the tiles
+     */
+    byte[] getTiles() {
+        return tiles;
+    }
+}
@@ -0,0 +1,30 @@
+package com.pinto.pacman;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * LevelLoadEvent is recorded by Java Flight Recorder when a level is loaded, with the time it took.
+ */
+@Name("com.pinto.pacman.LevelLoad")
+@Label("Level Load")
+@Category("Pac-Man")
+@Description("A level was loaded and its navigation tables built")
+class LevelLoadEvent extends jdk.jfr.Event {
+    @Label("Level")
+    int level;
+
+    @Label("Rows")
+    int rows;
+
+    @Label("Columns")
+    int columns;
+
+    @Label("Ghosts")
+    int ghosts;
+
+    @Label("Dots")
+    int dots;
+}
@@ -0,0 +1,242 @@
+package com.pinto.pacman;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * LevelLoader reads levels from text files, one line per row, in the characters of {@link Level}.
+ * Files are memory-mapped and scanned byte by byte, so no String is built even for mazes of thousands of tiles.
+ * <p>
+ * Every parsed level is written to a cache directory in a compact binary form, four bits per tile,
+ * named after the SHA-256 hash of the file. Loading the same file again only hashes it and reads the compiled level.
+ */
+public class LevelLoader {
+    static final int MAGIC = 0x504D4C56; // "PMLV"
+    static final int VERSION = 1;
+    private static final int HEADER_SIZE = 13;
+
+    private final Path cacheDirectory;
+
+    /**
+     * Constructor for the LevelLoader class.
+     * @param cacheDirectory The directory of the compiled levels, created if needed, or null to always parse the files
+     */
+    LevelLoader(Path cacheDirectory) {
+        this.cacheDirectory = cacheDirectory;
+    }
+
+    /**
+     * Get the cache directory used by default, set with the {@code pacman.levelCache} system property.
+     * @return the directory, in the temporary directory if the property is not set
+     */
+    public static Path defaultCacheDirectory() {
+        String directory = System.getProperty("pacman.levelCache");
+        if (directory != null)
+            return Path.of(directory);
+        return Path.of(System.getProperty("java.io.tmpdir"), "pacman-levels");
+    }
+
+    /**
+     * Loads a level file, from the cache if it was already compiled.
+     * @param file The level file
+     * @return the level
+     */
+    public LevelData load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size == 0)
+                throw new IOException(file + ": empty level file");
+            if (size > Integer.MAX_VALUE)
+                throw new IOException(file + ": level file too large");
+
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            String hash = hash(buffer);
+
+            LevelData level = loadCompiled(hash);
+            if (level != null)
+                return level;
+
+            try {
+                level = parse(buffer, hash);
+            } catch (IOException e) {
+                throw new IOException(file + ": " + e.getMessage(), e);
+            }
+            saveCompiled(level);
+            return level;
+        }
+    }
+
+    /**
+     * Loads a level from the cache.
+     * @param hash The hash of the file the level was loaded from
+     * @return the level, or null if it is not in the cache
+     */
+    public LevelData loadCompiled(String hash) throws IOException {
+        if (cacheDirectory == null)
+            return null;
+
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(cacheDirectory.resolve(hash + ".lvl"));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        // A cache written by another version is parsed again and overwritten
+        if (bytes.length < HEADER_SIZE || buffer.getInt() != MAGIC || buffer.get() != VERSION)
+            return null;
+
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+        long tileCount = (long) rows * columns;
+        if (rows <= 0 || columns <= 0 || buffer.remaining() != (tileCount + 1) / 2)
+            throw new IOException("Corrupted compiled level " + hash);
+
+        byte[] tiles = new byte[(int) tileCount];
+        for (int i = 0; i < tiles.length; i += 2) {
+            int pair = buffer.get() & 0xFF;
+            tiles[i] = decode(pair >>> 4, hash);
+            if (i + 1 < tiles.length)
+                tiles[i + 1] = decode(pair & 0x0F, hash);
+        }
+        return new LevelData(rows, columns, tiles, hash);
+    }
+
+    /**
+     * Writes a level to the cache. The file is renamed once complete, so a reader never sees half of it.
+     * @param level The level, loaded from a file
+     */
+    private void saveCompiled(LevelData level) {
+        if (cacheDirectory == null)
+            return;
+
+        try {
+            Files.createDirectories(cacheDirectory);
+            Path temporary = Files.createTempFile(cacheDirectory, level.getHash(), ".tmp");
+            try (OutputStream stream = Files.newOutputStream(temporary);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream))) {
+                out.writeInt(MAGIC);
+                out.writeByte(VERSION);
+                out.writeInt(level.getRows());
+                out.writeInt(level.getColumns());
+
+                byte[] tiles = level.getTiles();
+                for (int i = 0; i < tiles.length; i += 2) {
+                    int high = LevelData.TILES.indexOf(tiles[i]);
+                    int low = i + 1 < tiles.length ? LevelData.TILES.indexOf(tiles[i + 1]) : 0;
+                    out.writeByte(high << 4 | low);
+                }
+            }
+            Files.move(temporary, cacheDirectory.resolve(level.getHash() + ".lvl"),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // The cache only saves time, the level is parsed again next time
+            System.err.println("Could not cache level " + level.getHash() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses the text of a level, one line per row. Lines may end with "\n" or "\r\n".
+     * @param buffer The text of the level
+     * @param hash The hash of the text
+     * @return the level
+     */
+    static LevelData parse(ByteBuffer buffer, String hash) throws IOException {
+        int size = buffer.limit();
+
+        // First pass: size of the level
+        int rows = 0;
+        int columns = 0;
+        int lineStart = 0;
+        for (int i = 0; i <= size; i++) {
+            if (i == size || buffer.get(i) == '\n') {
+                int length = lineLength(buffer, lineStart, i);
+                // The last line may or may not end with a line break
+                if (i < size || length > 0) {
+                    rows++;
+                    columns = Math.max(columns, length);
+                }
+                lineStart = i + 1;
+            }
+        }
+        if ((long) rows * columns > Integer.MAX_VALUE)
+            throw new IOException("level too large");
+        if (columns == 0)
+            throw new IOException("empty level");
+
+        // Second pass: the tiles
+        byte[] tiles = new byte[rows * columns];
+        Arrays.fill(tiles, (byte) 'O');
+        int r = 0;
+        lineStart = 0;
+        for (int i = 0; i <= size && r < rows; i++) {
+            if (i == size || buffer.get(i) == '\n') {
+                int length = lineLength(buffer, lineStart, i);
+                for (int c = 0; c < length; c++) {
+                    byte tile = buffer.get(lineStart + c);
+                    if (LevelData.TILES.indexOf(tile) < 0)
+                        throw new IOException("unknown tile '" + (char) tile + "' at row " + (r + 1) + ", column " + (c + 1));
+                    tiles[r * columns + c] = tile;
+                }
+                r++;
+                lineStart = i + 1;
+            }
+        }
+        return new LevelData(rows, columns, tiles, hash);
+    }
+
+    /**
+     * Get the length of a line without its carriage return.
+     * @param buffer The text
+     * @param start The index of the first character of the line
+     * @param end The index of the line break
+     * @return the number of tiles of the line
+     */
+    private static int lineLength(ByteBuffer buffer, int start, int end) {
+        if (end > start && buffer.get(end - 1) == '\r')
+            return end - start - 1;
+        return end - start;
+    }
+
+    /**
+     * Get the character of a tile from its four-bit code.
+     * @param code The code of the tile
+     * @param hash The hash of the compiled level, for the error message
+     * @return the character of the tile
+     */
+    private static byte decode(int code, String hash) throws IOException {
+        if (code >= LevelData.TILES.length())
+            throw new IOException("Corrupted compiled level " + hash);
+        return (byte) LevelData.TILES.charAt(code);
+    }
+
+    /**
+     * Hashes the content of a file.
+     * @param buffer The content of the file
+     * @return the SHA-256 hash as hexadecimal digits
+     */
+    private static String hash(ByteBuffer buffer) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(buffer.duplicate());
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.pinto.pacman;
+
+import java.util.EnumMap;
+
+/**
+ * LevelTemplate is a level compiled once for a board: its walls, where Pac-Man and the ghosts start, the food it
+ * starts with and the paths of the ghosts to their scatter corners. It is never modified after it is compiled,
+ * so every game played on the level shares it, and starting or restarting the level only copies the food and the
+ * starting points into the state of the game.
+ * <p>
+ * The random draws of a level, the seed of each ghost and the dice deciding which dots become cherries,
+ * are made in the order of the map, as when the level was parsed, so seeded games play the same.
+ */
+public class LevelTemplate {
+    private static final Sprite[] SPRITES = Sprite.values();
+
+    private final int rows;
+    private final int columns;
+    private final int tileSize;
+    private final WallGrid walls;
+    private final FoodGrid food;
+    private final NavGraph navGraph;
+    private final EnumMap<Sprite, DistanceField> scatterFields = new EnumMap<>(Sprite.class);
+    // Start of Pac-Man, -1 if the level has none
+    private final int pacmanX;
+    private final int pacmanY;
+    private final byte[] ghostSprites;
+    private final int[] ghostX;
+    private final int[] ghostY;
+    // Tiles with a random draw in the order of the map: the index of a dot tile, or the complement of a ghost
+    private final int[] draws;
+
+    /**
+     * Compiles a level for a board. The parts of the level outside the board are ignored.
+     * @param levelData The tiles of the level
+     * @param rows Number of rows of the board
+     * @param columns Number of columns of the board
+     * @param tileSize Size of each tile
+     */
+    LevelTemplate(LevelData levelData, int rows, int columns, int tileSize) {
+        this.rows = rows;
+        this.columns = columns;
+        this.tileSize = tileSize;
+        this.walls = new WallGrid(rows, columns, tileSize);
+        this.food = new FoodGrid(rows, columns, tileSize);
+
+        int rowCount = Math.min(rows, levelData.getRows());
+        int columnCount = Math.min(columns, levelData.getColumns());
+        int ghostCount = 0;
+        int drawCount = 0;
+        for (int r = 0; r < rowCount; r++) {
+            for (int c = 0; c < columnCount; c++) {
+                switch (levelData.getTile(r, c)) {
+                    case 'b', 'o', 'p', 'r' -> {
+                        ghostCount++;
+                        drawCount++;
+                    }
+                    case ' ' -> drawCount++;
+                }
+            }
+        }
+
+        ghostSprites = new byte[ghostCount];
+        ghostX = new int[ghostCount];
+        ghostY = new int[ghostCount];
+        draws = new int[drawCount];
+        int ghost = 0;
+        int draw = 0;
+        int startX = -1;
+        int startY = -1;
+        for (int r = 0; r < rowCount; r++) {
+            for (int c = 0; c < columnCount; c++) {
+                Sprite ghostSprite = null;
+                switch (levelData.getTile(r, c)) {
+                    case 'X' -> walls.add(r, c); // Wall
+                    case 'b' -> ghostSprite = Sprite.BLUE_GHOST; // Blue Ghost
+                    case 'o' -> ghostSprite = Sprite.ORANGE_GHOST; // Orange Ghost
+                    case 'p' -> ghostSprite = Sprite.PINK_GHOST; // Pink Ghost
+                    case 'r' -> ghostSprite = Sprite.RED_GHOST; // Red Ghost
+                    case 'P' -> { // Pacman
+                        startX = c * tileSize;
+                        startY = r * tileSize;
+                    }
+                    case 'F' -> food.addPowerFood(r, c); // Power food
+                    case ' ' -> { // Food, some of which become cherries when the level starts
+                        food.addDot(r, c);
+                        draws[draw++] = r * columns + c;
+                    }
+                }
+                if (ghostSprite != null) {
+                    ghostSprites[ghost] = (byte) ghostSprite.ordinal();
+                    ghostX[ghost] = c * tileSize;
+                    ghostY[ghost] = r * tileSize;
+                    draws[draw++] = ~ghost++;
+                }
+            }
+        }
+        pacmanX = startX;
+        pacmanY = startY;
+
+        // The stock levels come with their graph compiled when the game was built
+        NavGraph compiled = Level.getCompiledGraph(walls);
+        navGraph = compiled != null ? compiled : new NavGraph(walls);
+        addScatterField(Sprite.RED_GHOST, 0, columns - 1);
+        addScatterField(Sprite.PINK_GHOST, 0, 0);
+        addScatterField(Sprite.BLUE_GHOST, rows - 1, columns - 1);
+        addScatterField(Sprite.ORANGE_GHOST, rows - 1, 0);
+    }
+
+    /**
+     * Computes the distances to the scatter corner of a ghost.
+     * @param ghostSprite The sprite of the ghost
+     * @param row The row of the corner
+     * @param column The column of the corner
+     */
+    private void addScatterField(Sprite ghostSprite, int row, int column) {
+        DistanceField field = new DistanceField(navGraph);
+        field.update(navGraph.nearestWalkable(row, column));
+        scatterFields.put(ghostSprite, field);
+    }
+
+    /**
+     * Checks if the template was compiled for a board.
+     * @param rows Number of rows of the board
+     * @param columns Number of columns of the board
+     * @param tileSize Size of each tile
+     * @return True if the template fits the board
+     */
+    public boolean fits(int rows, int columns, int tileSize) {
+        return this.rows == rows && this.columns == columns && this.tileSize == tileSize;
+    }
+
+    /**
+     * Get the walls of the level. The grid must not be modified.
+     * @return the walls
+     */
+    public WallGrid getWalls() {
+        return walls;
+    }
+
+    /**
+     * Get the food the level starts with, without cherries. The grid must not be modified, copy it instead.
+     * @return the food
+     */
+    public FoodGrid getFood() {
+        return food;
+    }
+
+    public NavGraph getNavGraph() {
+        return navGraph;
+    }
+
+    /**
+     * Get the distances to the scatter corner of each ghost. The fields must not be updated.
+     * @return the distance field of each ghost sprite
+     */
+    public EnumMap<Sprite, DistanceField> getScatterFields() {
+        return scatterFields;
+    }
+
+    /**
+     * Checks if the level has a start for Pac-Man.
+     * @return True if Pac-Man starts somewhere on the board
+     */
+    public boolean hasPacman() {
+        return pacmanX >= 0;
+    }
+
+    public int getPacmanX() {
+        return pacmanX;
+    }
+
+    public int getPacmanY() {
+        return pacmanY;
+    }
+
+    public int getGhostCount() {
+        return ghostSprites.length;
+    }
+
+    /**
+     * Get the sprite of a ghost.
+     * @param ghost The index of the ghost, in the order of the map
+     * @return the sprite
+     */
+    public Sprite getGhostSprite(int ghost) {
+        return SPRITES[ghostSprites[ghost]];
+    }
+
+    public int getGhostX(int ghost) {
+        return ghostX[ghost];
+    }
+
+    public int getGhostY(int ghost) {
+        return ghostY[ghost];
+    }
+
+    /**
+     * Get the number of tiles the level makes a random draw for when it starts.
+     * @return the number of draws
+     */
+    public int getDrawCount() {
+        return draws.length;
+    }
+
+    /**
+     * Get a tile the level makes a random draw for, in the order of the map.
+     * @param i The number of the draw
+     * @return the index of a dot tile, or the complement ({@code ~ghost}) of a ghost
+     */
+    public int getDraw(int i) {
+        return draws[i];
+    }
+}
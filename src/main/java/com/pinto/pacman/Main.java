@@ -0,0 +1,96 @@
+package com.pinto.pacman;
+
+import javax.swing.*;
+import java.awt.GraphicsDevice;
+import java.awt.GraphicsEnvironment;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.util.Objects;
+
+public class Main {
+    public static void main(String[] args) throws IOException {
+        final int ROW_COUNT = 21;
+        final int COLUMN_COUNT = 19;
+        final int TILE_SIZE = 32;
+        final int BOARD_WIDTH = TILE_SIZE * COLUMN_COUNT;
+        final int BOARD_HEIGHT = TILE_SIZE * ROW_COUNT;
+        final int TICKS_PER_SECOND = Integer.getInteger("pacman.ticksPerSecond", Game.DEFAULT_TICKS_PER_SECOND);
+        final int MAX_FRAMES_PER_SECOND = Integer.getInteger("pacman.maxFramesPerSecond", PacMan.DEFAULT_MAX_FRAMES_PER_SECOND);
+        final String RECORD_FILE = System.getProperty("pacman.record");
+        // Part of the board in view for levels larger than the window, the view follows Pac-Man
+        final int VIEW_WIDTH = TILE_SIZE * Integer.getInteger("pacman.viewColumns", COLUMN_COUNT);
+        final int VIEW_HEIGHT = TILE_SIZE * Integer.getInteger("pacman.viewRows", ROW_COUNT);
+        final int SWARM_GHOSTS = Integer.getInteger("pacman.swarm", 0);
+        final int SWARM_SIZE = Integer.getInteger("pacman.swarmSize", 101);
+        // Search time of each move of the bot, in milliseconds, the bot does not play if not set
+        final int BOT_MILLIS = Integer.getInteger("pacman.bot", 0);
+        // Server to play on, as host:port, the game is played alone if not set
+        final String CONNECT = System.getProperty("pacman.connect");
+        final String ROOM = System.getProperty("pacman.room", "default");
+        final String ROLE = System.getProperty("pacman.role", "pacman");
+        // The window takes the whole screen, the game is scaled to fit it
+        final boolean FULL_SCREEN = Boolean.getBoolean("pacman.fullScreen");
+
+        ImageIcon icon = new ImageIcon(Objects.requireNonNull(Main.class.getResource("images/pacmanRight.png")));
+
+        JFrame frame = new JFrame("Pac Man");
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        frame.setIconImage(icon.getImage());
+        frame.setSize(BOARD_WIDTH, BOARD_HEIGHT);
+        // The game is scaled to the size of the window
+        frame.setResizable(true);
+
+        // Levels can be loaded from files given as arguments, played in turn
+        LevelData[] levels = null;
+        if (args.length > 0) {
+            LevelLoader loader = new LevelLoader(LevelLoader.defaultCacheDirectory());
+            levels = new LevelData[args.length];
+            for (int i = 0; i < args.length; i++) {
+                levels[i] = loader.load(Path.of(args[i]));
+            }
+        } else if (SWARM_GHOSTS > 0) {
+            // Swarm mode: a large generated maze full of ghosts
+            levels = new LevelData[] {LevelData.of(Level.generateMaze(SWARM_SIZE, SWARM_SIZE, SWARM_GHOSTS, System.nanoTime()))};
+        }
+
+        PacMan pacmanGame;
+        if (CONNECT != null) {
+            int colon = CONNECT.lastIndexOf(':');
+            String host = colon >= 0 ? CONNECT.substring(0, colon) : CONNECT;
+            int port = colon >= 0 ? Integer.parseInt(CONNECT.substring(colon + 1)) : Protocol.DEFAULT_PORT;
+            GameClient client = GameClient.connect(new InetSocketAddress(host, port), ROOM, Protocol.parseRole(ROLE));
+            pacmanGame = new PacMan(client, MAX_FRAMES_PER_SECOND);
+        } else if (levels != null) {
+            pacmanGame = new PacMan(levels, VIEW_WIDTH, VIEW_HEIGHT, TILE_SIZE, TICKS_PER_SECOND, MAX_FRAMES_PER_SECOND);
+        } else {
+            pacmanGame = new PacMan(BOARD_WIDTH, BOARD_HEIGHT, TILE_SIZE, TICKS_PER_SECOND, MAX_FRAMES_PER_SECOND);
+        }
+        if (BOT_MILLIS > 0)
+            pacmanGame.agent = new MonteCarloAgent(Runtime.getRuntime().availableProcessors(), BOT_MILLIS * 1_000_000L, System.nanoTime());
+        if (RECORD_FILE != null) {
+            pacmanGame.startRecording(Path.of(RECORD_FILE));
+            // The replay is ended when the window is closed
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    pacmanGame.stopRecording();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }));
+        }
+        frame.add(pacmanGame);
+        frame.setUndecorated(FULL_SCREEN);
+        frame.pack();
+        pacmanGame.requestFocus();
+        GraphicsDevice screen = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+        if (FULL_SCREEN && screen.isFullScreenSupported()) {
+            screen.setFullScreenWindow(frame);
+        } else {
+            if (FULL_SCREEN)
+                frame.setExtendedState(JFrame.MAXIMIZED_BOTH);
+            frame.setVisible(true);
+        }
+    }
+}
\ No newline at end of file
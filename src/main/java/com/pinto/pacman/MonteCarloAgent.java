@@ -0,0 +1,374 @@
+package com.pinto.pacman;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * MonteCarloAgent plays Pac-Man on its own, choosing its direction with Monte-Carlo tree search.
+ * <p>
+ * Each time Pac-Man is on a tile, the game is written to a snapshot and every worker restores it into its own copy
+ * of the game, then grows its own search tree by playing short random games from there, until the time budget
+ * of the tick is spent. The workers run on a work-stealing pool and share nothing but the snapshot,
+ * their trees are merged at the root. A move of the tree is a direction held while Pac-Man crosses a tile.
+ * <p>
+ * The search only allocates when a move is chosen, never in a rollout: the games are restored in place
+ * and the trees are kept in arrays.
+ */
+public class MonteCarloAgent {
+    // Nodes of the tree of each worker
+    private static final int MAX_NODES = 1 << 15;
+    // Moves from the root to the deepest node of a tree
+    private static final int MAX_DEPTH = 16;
+    // Random moves played after the tree
+    private static final int ROLLOUT_MOVES = 8;
+    // Weight of the exploration of the moves tried the least
+    private static final double EXPLORATION = 0.7;
+
+    private final ForkJoinPool pool;
+    private final int threads;
+    private final long budgetNanos;
+    private final long seed;
+    private final Search[] searches;
+
+    // Game the workers copied, they are copied again for another game
+    private Game player;
+    private byte[] root = new byte[0];
+    private char direction = Game.NO_INPUT;
+    private int ticksSinceSearch = 0;
+
+    private long rollouts = 0;
+    private long searchNanos = 0;
+
+    /**
+     * Constructor for the MonteCarloAgent class.
+     * @param threads Number of workers searching in parallel
+     * @param budgetNanos Time spent searching each move, in nanoseconds
+     * @param seed Seed of the random sources of the workers
+     */
+    MonteCarloAgent(int threads, long budgetNanos, long seed) {
+        this.pool = new ForkJoinPool(threads);
+        this.threads = threads;
+        this.budgetNanos = budgetNanos;
+        this.seed = seed;
+        this.searches = new Search[threads];
+    }
+
+    /**
+     * Chooses the input of the next tick of a game.
+     * @param game The game, in the state before the tick
+     * @return the direction to press, or NO_INPUT
+     */
+    public char nextInput(Game game) {
+        if (game.gameOver)
+            return Game.NO_INPUT;
+
+        // Off the board, in a tunnel, there are no walls to follow: Pac-Man keeps going until it is back
+        Game.Block pacman = game.pacman;
+        if (pacman.x < 0 || pacman.y < 0 || pacman.x + pacman.width > game.BOARD_WIDTH || pacman.y + pacman.height > game.BOARD_HEIGHT)
+            return Game.NO_INPUT;
+
+        // A move is chosen on each tile, and at least as often as Pac-Man crosses one in case it is off the grid
+        boolean onTile = Math.floorMod(pacman.x, game.TILE_SIZE) == 0 && Math.floorMod(pacman.y, game.TILE_SIZE) == 0;
+        if (onTile || direction == Game.NO_INPUT || ticksSinceSearch >= ticksPerTile(game)) {
+            direction = search(game);
+            ticksSinceSearch = 0;
+        }
+        ticksSinceSearch++;
+        return direction;
+    }
+
+    /**
+     * Searches the best direction from the current state of a game.
+     * @param game The game
+     * @return the direction
+     */
+    private char search(Game game) {
+        long start = System.nanoTime();
+        if (game != player) {
+            player = game;
+            for (int i = 0; i < threads; i++) {
+                searches[i] = new Search(game.copy(new Random(seed + i)), new Random(seed ^ (i + 1) * 0x9E3779B97F4A7C15L));
+            }
+        }
+
+        int size = game.getSnapshotSize();
+        if (root.length < size)
+            root = new byte[size];
+        game.snapshot(ByteBuffer.wrap(root, 0, size));
+
+        long deadline = start + budgetNanos;
+        pool.submit(() -> IntStream.range(0, threads).parallel().forEach(i -> searches[i].run(root, size, deadline))).join();
+
+        // The move tried the most by all the workers is the one they found best
+        int best = -1;
+        long bestVisits = 0;
+        double bestValue = 0;
+        for (int move = 0; move < game.directions.length; move++) {
+            long visits = 0;
+            double value = 0;
+            for (Search search : searches) {
+                visits += search.getRootVisits(move);
+                value += search.getRootValue(move);
+            }
+            if (visits > bestVisits || (visits == bestVisits && visits > 0 && value > bestValue)) {
+                best = move;
+                bestVisits = visits;
+                bestValue = value;
+            }
+        }
+        for (Search search : searches) {
+            rollouts += search.iterations;
+        }
+        searchNanos += System.nanoTime() - start;
+
+        return best >= 0 ? game.directions[best] : game.pacman.direction;
+    }
+
+    /**
+     * Get the number of ticks Pac-Man takes to cross a tile.
+     * @param game The game
+     * @return the number of ticks
+     */
+    private static int ticksPerTile(Game game) {
+        int speed = game.TILE_SIZE / 4 * Game.DEFAULT_TICKS_PER_SECOND / game.TICKS_PER_SECOND;
+        return game.TILE_SIZE / speed;
+    }
+
+    /**
+     * Stops the workers.
+     */
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Get the number of games played by the search so far.
+     * @return the number of rollouts
+     */
+    public long getRollouts() {
+        return rollouts;
+    }
+
+    /**
+     * Get the number of rollouts per second of search on each worker.
+     * @return the rollouts per second per worker
+     */
+    public double getRolloutsPerSecondPerThread() {
+        return searchNanos == 0 ? 0 : rollouts / (searchNanos / 1e9) / threads;
+    }
+
+    /**
+     * Search is the tree of one worker, with the copy of the game it plays on.
+     * Each node has its four children, one per direction, next to each other.
+     */
+    private static class Search {
+        private final Game game;
+        private final Random random;
+        private final int stepTicks;
+
+        private final int[] firstChild = new int[MAX_NODES];
+        private final int[] visits = new int[MAX_NODES];
+        private final double[] values = new double[MAX_NODES];
+        private int nodeCount;
+        private final int[] path = new int[MAX_DEPTH + 1];
+        int iterations;
+
+        // Distances to the dot nearest to Pac-Man at the root, to reward rollouts getting closer to the food
+        private DistanceField foodField;
+        private NavGraph foodGraph;
+        private int rootDistance;
+
+        /**
+         * Constructor for the Search class.
+         * @param game The copy of the game played by the worker
+         * @param random Random source of the rollouts
+         */
+        Search(Game game, Random random) {
+            this.game = game;
+            this.random = random;
+            this.stepTicks = ticksPerTile(game);
+        }
+
+        /**
+         * Searches from a state until the deadline, at least once.
+         * @param root The snapshot of the state
+         * @param size Size of the snapshot
+         * @param deadline The time to stop at, from System.nanoTime()
+         */
+        void run(byte[] root, int size, long deadline) {
+            ByteBuffer buffer = ByteBuffer.wrap(root, 0, size);
+            game.restore(buffer);
+            aimAtNearestDot();
+
+            nodeCount = 1;
+            firstChild[0] = -1;
+            visits[0] = 0;
+            values[0] = 0;
+            iterations = 0;
+            do {
+                buffer.position(0);
+                iterate(buffer);
+                iterations++;
+            } while (System.nanoTime() < deadline);
+        }
+
+        /**
+         * Finds the dot nearest to Pac-Man, by walking distance, and computes the distances to it.
+         */
+        private void aimAtNearestDot() {
+            if (foodGraph != game.navGraph) {
+                foodGraph = game.navGraph;
+                foodField = new DistanceField(foodGraph);
+            }
+
+            int pacmanTile = game.getPacmanTile();
+            game.pacmanField.update(pacmanTile);
+            int target = -1;
+            int nearest = DistanceField.UNREACHABLE;
+            for (int dot = game.food.nextDot(0); dot >= 0; dot = game.food.nextDot(dot + 1)) {
+                if (game.pacmanField.distance(dot) < nearest) {
+                    nearest = game.pacmanField.distance(dot);
+                    target = dot;
+                }
+            }
+            foodField.update(target);
+            rootDistance = target >= 0 ? foodField.distance(pacmanTile) : 0;
+        }
+
+        /**
+         * Plays one game from the root: down the tree to a leaf, one new node, then random moves.
+         * @param root The snapshot of the state of the root
+         */
+        private void iterate(ByteBuffer root) {
+            game.restore(root);
+            int startScore = game.score;
+            int startLives = game.lives;
+            int startLevel = game.level;
+
+            int node = 0;
+            int depth = 0;
+            path[0] = 0;
+            boolean over = false;
+            while (firstChild[node] >= 0 && depth < MAX_DEPTH && !over) {
+                int child = select(node);
+                over = !play(child - firstChild[node]);
+                node = child;
+                path[++depth] = node;
+            }
+
+            // A leaf tried once gets its children
+            if (!over && depth < MAX_DEPTH && visits[node] > 0 && nodeCount + 4 <= MAX_NODES) {
+                firstChild[node] = nodeCount;
+                for (int i = 0; i < 4; i++) {
+                    firstChild[nodeCount] = -1;
+                    visits[nodeCount] = 0;
+                    values[nodeCount] = 0;
+                    nodeCount++;
+                }
+                int move = random.nextInt(4);
+                over = !play(move);
+                node = firstChild[node] + move;
+                path[++depth] = node;
+            }
+
+            // Random moves that never turn back, so that a rollout goes somewhere
+            int moves = depth;
+            for (int i = 0; i < ROLLOUT_MOVES && !over; i++) {
+                int reverse = game.directionIndex(game.pacman.direction) ^ 1;
+                int move = random.nextInt(3);
+                over = !play(move >= reverse ? move + 1 : move);
+                moves++;
+            }
+
+            double reward = reward(startScore, startLives, startLevel, moves);
+            for (int i = 0; i <= depth; i++) {
+                visits[path[i]]++;
+                values[path[i]] += reward;
+            }
+        }
+
+        /**
+         * Chooses the child of a node to go down to, with the UCT formula.
+         * @param node The node
+         * @return the child
+         */
+        private int select(int node) {
+            int first = firstChild[node];
+            double logVisits = Math.log(visits[node]);
+            int offset = random.nextInt(4);
+            int best = first + offset;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            for (int i = 0; i < 4; i++) {
+                int child = first + ((i + offset) & 3);
+                if (visits[child] == 0)
+                    return child;
+                double score = values[child] / visits[child] + EXPLORATION * Math.sqrt(logVisits / visits[child]);
+                if (score > bestScore) {
+                    best = child;
+                    bestScore = score;
+                }
+            }
+            return best;
+        }
+
+        /**
+         * Holds a direction while Pac-Man crosses a tile.
+         * @param move The index of the direction
+         * @return True if the game goes on, false if Pac-Man lost a life or cleared the level
+         */
+        private boolean play(int move) {
+            char direction = game.directions[move];
+            for (int tick = 0; tick < stepTicks; tick++) {
+                int lives = game.lives;
+                int level = game.level;
+                game.step(direction);
+                if (game.gameOver || game.lives < lives || game.level != level)
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Scores the end of a rollout between 0 and 1: nothing for a lost life, everything for a cleared level,
+         * and otherwise the points earned per move and how much closer Pac-Man got to the dot nearest to the root.
+         * @param startScore The score at the root
+         * @param startLives The lives at the root
+         * @param startLevel The level at the root
+         * @param moves The number of moves played
+         * @return the reward
+         */
+        private double reward(int startScore, int startLives, int startLevel, int moves) {
+            if (game.gameOver || game.lives < startLives)
+                return 0;
+            if (game.level != startLevel)
+                return 1;
+
+            moves = Math.max(1, moves);
+            double earned = Math.min(1, (game.score - startScore) / (10.0 * moves));
+            int distance = foodField.distance(game.getPacmanTile());
+            double closer = distance == DistanceField.UNREACHABLE ? 0
+                    : Math.max(-1, Math.min(1, (double) (rootDistance - distance) / moves));
+            return 0.5 + 0.25 * earned + 0.25 * closer;
+        }
+
+        /**
+         * Get the number of times a move of the root was tried.
+         * @param move The index of the direction
+         * @return the number of visits
+         */
+        int getRootVisits(int move) {
+            return firstChild[0] < 0 ? 0 : visits[firstChild[0] + move];
+        }
+
+        /**
+         * Get the sum of the rewards of a move of the root.
+         * @param move The index of the direction
+         * @return the total reward
+         */
+        double getRootValue(int move) {
+            return firstChild[0] < 0 ? 0 : values[firstChild[0] + move];
+        }
+    }
+}
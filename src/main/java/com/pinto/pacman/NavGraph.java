@@ -0,0 +1,280 @@
+package com.pinto.pacman;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * NavGraph is the graph of the tiles a block can walk on, built once per level from its walls.
+ * Each tile is linked to its free neighbors in the four directions. The edges of the board wrap around,
+ * like the 'O' tunnels where blocks leaving the board come back on the other side.
+ * Tiles are indexed by {@code row * columns + column} and directions follow {@link Game#directions}.
+ * <p>
+ * The graphs of the stock levels are compiled when the game is built, by {@link LevelCompiler}, with the walking
+ * distance between every pair of tiles, and read with {@link #read} instead of being built on launch.
+ */
+public class NavGraph {
+    public static final int UP = 0;
+    public static final int DOWN = 1;
+    public static final int LEFT = 2;
+    public static final int RIGHT = 3;
+
+    static final int MAGIC = 0x504D4E56; // "PMNV"
+    // Version 2: the junctions are no longer written, nothing used them
+    static final int VERSION = 2;
+    // Distance between two tiles that cannot reach each other, in the table of distances
+    private static final char NO_PATH = Character.MAX_VALUE;
+
+    private final int rows;
+    private final int columns;
+    private final boolean[] walkable;
+    private final int[] neighbors;
+    // Walking distances between every pair of walkable tiles, null if they were not computed.
+    // Each walkable tile has an index among the walkable tiles, -1 for the walls
+    private final int[] walkableIndex;
+    private final int walkableCount;
+    private final char[] distances;
+
+    /**
+     * Constructor for the NavGraph class.
+     * @param walls The walls of the level
+     */
+    NavGraph(WallGrid walls) {
+        this.rows = walls.getRows();
+        this.columns = walls.getColumns();
+        this.walkable = new boolean[rows * columns];
+        this.neighbors = new int[rows * columns * 4];
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                walkable[r * columns + c] = !walls.isWall(r, c);
+            }
+        }
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                int tile = r * columns + c;
+                neighbors[tile * 4 + UP] = link(tile, Math.floorMod(r - 1, rows), c);
+                neighbors[tile * 4 + DOWN] = link(tile, Math.floorMod(r + 1, rows), c);
+                neighbors[tile * 4 + LEFT] = link(tile, r, Math.floorMod(c - 1, columns));
+                neighbors[tile * 4 + RIGHT] = link(tile, r, Math.floorMod(c + 1, columns));
+            }
+        }
+        this.walkableIndex = null;
+        this.walkableCount = 0;
+        this.distances = null;
+    }
+
+    /**
+     * Constructor for the NavGraph class, from tables computed before.
+     * @param rows Number of rows of the level
+     * @param columns Number of columns of the level
+     * @param walkable If each tile can be walked on
+     * @param neighbors The neighbor of each tile in each direction, -1 if there is none
+     * @param walkableIndex The index of each tile among the walkable tiles, or null
+     * @param distances The distances between walkable tiles, or null
+     */
+    private NavGraph(int rows, int columns, boolean[] walkable, int[] neighbors, int[] walkableIndex, char[] distances) {
+        this.rows = rows;
+        this.columns = columns;
+        this.walkable = walkable;
+        this.neighbors = neighbors;
+        this.walkableIndex = walkableIndex;
+        this.walkableCount = distances != null ? (int) Math.sqrt(distances.length) : 0;
+        this.distances = distances;
+    }
+
+    /**
+     * Computes the walking distance between every pair of walkable tiles, with a breadth-first search from each.
+     * It takes the square of the number of walkable tiles in time and memory, so it is only done for small levels.
+     * @return a graph with the same tiles and the table of distances
+     * @throws IllegalStateException if the level is too large for distances of 16 bits
+     */
+    public NavGraph withDistances() {
+        int[] index = new int[walkable.length];
+        int count = 0;
+        for (int tile = 0; tile < walkable.length; tile++) {
+            index[tile] = walkable[tile] ? count++ : -1;
+        }
+        if ((long) count * count > Integer.MAX_VALUE || count >= NO_PATH)
+            throw new IllegalStateException("Too many walkable tiles for a table of distances: " + count);
+
+        char[] table = new char[count * count];
+        DistanceField field = new DistanceField(this);
+        for (int tile = 0; tile < walkable.length; tile++) {
+            if (index[tile] < 0)
+                continue;
+            field.update(tile);
+            int row = index[tile] * count;
+            for (int other = 0; other < walkable.length; other++) {
+                if (index[other] >= 0) {
+                    int distance = field.distance(other);
+                    table[row + index[other]] = distance == DistanceField.UNREACHABLE ? NO_PATH : (char) distance;
+                }
+            }
+        }
+        return new NavGraph(rows, columns, walkable, neighbors, index, table);
+    }
+
+    /**
+     * Writes the graph, with its table of distances if it has one, in the form read by {@link #read}.
+     * @param out The stream to write to
+     */
+    public void write(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(rows);
+        out.writeInt(columns);
+        for (boolean tile : walkable) {
+            out.writeBoolean(tile);
+        }
+        for (int neighbor : neighbors) {
+            out.writeInt(neighbor);
+        }
+        out.writeBoolean(distances != null);
+        if (distances != null) {
+            for (char distance : distances) {
+                out.writeChar(distance);
+            }
+        }
+    }
+
+    /**
+     * Reads a graph written by {@link #write}.
+     * @param in The stream to read from
+     * @return the graph
+     * @throws IOException if the stream does not hold a graph of this version
+     */
+    public static NavGraph read(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readByte() != VERSION)
+            throw new IOException("Not a compiled graph of version " + VERSION);
+
+        int rows = in.readInt();
+        int columns = in.readInt();
+        boolean[] walkable = new boolean[rows * columns];
+        for (int tile = 0; tile < walkable.length; tile++) {
+            walkable[tile] = in.readBoolean();
+        }
+        int[] neighbors = new int[walkable.length * 4];
+        for (int i = 0; i < neighbors.length; i++) {
+            neighbors[i] = in.readInt();
+        }
+        if (!in.readBoolean())
+            return new NavGraph(rows, columns, walkable, neighbors, null, null);
+
+        int[] index = new int[walkable.length];
+        int count = 0;
+        for (int tile = 0; tile < walkable.length; tile++) {
+            index[tile] = walkable[tile] ? count++ : -1;
+        }
+        char[] distances = new char[count * count];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = in.readChar();
+        }
+        return new NavGraph(rows, columns, walkable, neighbors, index, distances);
+    }
+
+    /**
+     * Checks if the graph was built from walls, such as a compiled graph that must match the level it is used for.
+     * @param walls The walls
+     * @return True if the graph has the size of the walls and its walls are theirs
+     */
+    public boolean matches(WallGrid walls) {
+        if (walls.getRows() != rows || walls.getColumns() != columns)
+            return false;
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                if (walkable[r * columns + c] == walls.isWall(r, c))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the neighbor of a tile if both can be walked on.
+     * @param tile The tile
+     * @param row The row of the neighbor
+     * @param column The column of the neighbor
+     * @return the index of the neighbor, or -1 if there is no way from the tile to it
+     */
+    private int link(int tile, int row, int column) {
+        int neighbor = row * columns + column;
+        return walkable[tile] && walkable[neighbor] ? neighbor : -1;
+    }
+
+    /**
+     * Get the neighbor of a tile in a direction.
+     * @param tile The tile
+     * @param direction The direction, UP, DOWN, LEFT or RIGHT
+     * @return the index of the neighbor, or -1 if it cannot be walked to
+     */
+    public int neighbor(int tile, int direction) {
+        return neighbors[tile * 4 + direction];
+    }
+
+    /**
+     * Checks if a tile can be walked on.
+     * @param tile The tile
+     * @return True if the tile is not a wall, false otherwise
+     */
+    public boolean isWalkable(int tile) {
+        return walkable[tile];
+    }
+
+    /**
+     * Get the walkable tile closest to a position, used to place targets such as the scatter corners.
+     * @param row The row of the position
+     * @param column The column of the position
+     * @return the index of the closest walkable tile, or -1 if no tile can be walked on
+     */
+    public int nearestWalkable(int row, int column) {
+        int nearest = -1;
+        int nearestDistance = Integer.MAX_VALUE;
+        for (int tile = 0; tile < walkable.length; tile++) {
+            if (!walkable[tile])
+                continue;
+            int distance = Math.abs(tile / columns - row) + Math.abs(tile % columns - column);
+            if (distance < nearestDistance) {
+                nearest = tile;
+                nearestDistance = distance;
+            }
+        }
+        return nearest;
+    }
+
+    /**
+     * Checks if the graph holds the walking distance between every pair of tiles.
+     * @return True if {@link #distance} can be used
+     */
+    public boolean hasDistances() {
+        return distances != null;
+    }
+
+    /**
+     * Get the walking distance between two tiles, from the table of distances.
+     * @param from The first tile
+     * @param to The second tile
+     * @return the number of tiles to walk, or DistanceField.UNREACHABLE if there is no way or a tile is a wall
+     */
+    public int distance(int from, int to) {
+        int fromIndex = walkableIndex[from];
+        int toIndex = walkableIndex[to];
+        if (fromIndex < 0 || toIndex < 0)
+            return DistanceField.UNREACHABLE;
+        char distance = distances[fromIndex * walkableCount + toIndex];
+        return distance == NO_PATH ? DistanceField.UNREACHABLE : distance;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getTileCount() {
+        return walkable.length;
+    }
+}
@@ -0,0 +1,93 @@
+package com.pinto.pacman;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * NetworkCheck makes sure a malformed message only costs the connection it came on.
+ * It starts a {@link GameServer} on a free port of the loopback interface, sends it broken JOIN messages
+ * from raw connections, then joins a room with a {@link GameClient} and plays a few ticks.
+ * It exits with an error if the server stopped or the client could not play.
+ * Run it with {@code java -cp target/classes com.pinto.pacman.NetworkCheck}.
+ */
+public class NetworkCheck {
+    private static final int TICKS_PER_SECOND = 20;
+    private static final int TICKS = 40;
+    // Time given to the server to read each broken message, in milliseconds
+    private static final int READ_MILLIS = 200;
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        GameServer server = new GameServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), TICKS_PER_SECOND);
+        Thread thread = new Thread(server, "Game server");
+        thread.setDaemon(true);
+        thread.start();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+
+        boolean passed = true;
+        // The length of the name is far larger than the frame, then just one byte larger than what is left of it
+        passed &= checkBrokenJoin(address, thread, "Huge name length", new byte[]{(byte) 0xFE, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07});
+        passed &= checkBrokenJoin(address, thread, "Name past the frame", new byte[]{3, 'a', 0});
+        // A message cut before its end
+        passed &= checkBrokenJoin(address, thread, "Missing role", new byte[]{1, 'a'});
+
+        passed &= checkClient(address, thread);
+        server.stop();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Joins a room and plays a few ticks, checking that the client is still connected to a running server.
+     * @param address The address of the server
+     * @param thread The thread running the server
+     * @return True if the client could play
+     */
+    private static boolean checkClient(InetSocketAddress address, Thread thread) throws InterruptedException {
+        boolean passed;
+        try {
+            GameClient client = GameClient.connect(address, "check", Protocol.PACMAN);
+            Game game = client.newGame();
+            for (int i = 0; i < TICKS; i++) {
+                client.tick(game, Game.NO_INPUT);
+                Thread.sleep(1000 / TICKS_PER_SECOND);
+            }
+            passed = client.isConnected() && thread.isAlive();
+            client.close();
+        } catch (IOException e) {
+            // The server is gone
+            passed = false;
+        }
+        System.out.printf("%-20s %s%n", "Client plays", passed ? "ok" : "FAILED");
+        return passed;
+    }
+
+    /**
+     * Sends a JOIN message and checks that the server is still running after reading it.
+     * @param address The address of the server
+     * @param thread The thread running the server
+     * @param name The name of the case, printed with its result
+     * @param body The message after its type
+     * @return True if the server is still running
+     */
+    private static boolean checkBrokenJoin(InetSocketAddress address, Thread thread, String name, byte[] body)
+            throws InterruptedException {
+        try (SocketChannel channel = SocketChannel.open(address)) {
+            ByteBuffer frame = ByteBuffer.allocate(Protocol.FRAME_HEADER_SIZE + body.length);
+            Protocol.putHeader(frame, Protocol.JOIN, body.length);
+            frame.put(body);
+            frame.flip();
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+            Thread.sleep(READ_MILLIS);
+        } catch (IOException e) {
+            // The server is gone, or it closed this connection before reading all of the message, which is fine
+        }
+
+        boolean passed = thread.isAlive();
+        System.out.printf("%-20s %s%n", name, passed ? "ok" : "FAILED");
+        return passed;
+    }
+}
@@ -0,0 +1,1118 @@
+package com.pinto.pacman;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.KeyListener;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * PacMan is the Swing panel showing a game of Pac-Man.
+ * It draws the state of a {@link Game} and steps it from a {@link GameLoop} with the keys pressed by the player.
+ * Ticks run on the loop thread and painting on the event dispatch thread, both holding the lock of the game.
+ */
+public class PacMan extends JPanel implements GameLoop.Listener, KeyListener {
+
+    /**
+     * Default maximum number of frames per second.
+     */
+    public static final int DEFAULT_MAX_FRAMES_PER_SECOND = 120;
+
+    private final int TILE_SIZE;
+    private final int BOARD_WIDTH;
+    private final int BOARD_HEIGHT;
+    private final int VIEW_WIDTH;
+    private final int VIEW_HEIGHT;
+
+    // Size of the square chunks the walls are drawn in, in tiles, and number of chunks kept in memory
+    private static final int WALL_CHUNK_TILES = 16;
+    private static final int MAX_WALL_CHUNKS = 32;
+
+    // The images are decoded in the background, the panel shows a loading message until they are ready
+    private final CompletableFuture<SpriteAtlas> assets;
+    private volatile SpriteAtlas atlas;
+    private volatile String assetError;
+
+    // The walls never change during a level, so they are drawn once in chunks of the board as they come into view.
+    // Only the most recently drawn chunks are kept, so the memory used depends on the view, not on the board.
+    // The chunks are looked up among a few slots, each remembering when it was last drawn, without allocating.
+    private final int[] wallChunkKeys = new int[MAX_WALL_CHUNKS];
+    private final BufferedImage[] wallChunkImages = new BufferedImage[MAX_WALL_CHUNKS];
+    private final long[] wallChunkUses = new long[MAX_WALL_CHUNKS];
+    private long wallChunkClock = 0;
+    private WallGrid wallChunksGrid;
+    private GraphicsConfiguration wallChunksConfiguration;
+    private int wallChunksTileSize;
+
+    // The view is scaled to fill the panel, by a whole number of pixels of the screen per tile,
+    // and the sprites are drawn from an atlas packed at that size so that drawing them does not resample them.
+    // Only the atlases of the last sizes are kept, sizes go by one after the other while the window is resized.
+    private static final int MAX_SCALED_ATLASES = 4;
+    private final LinkedHashMap<Integer, SpriteAtlas> scaledAtlases = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, SpriteAtlas> eldest) {
+            return size() > MAX_SCALED_ATLASES;
+        }
+    };
+    private SpriteAtlas screenAtlas;
+    private GraphicsConfiguration atlasConfiguration;
+    // Layout of the view, in pixels of the screen: the size of a tile and the top left corner of the view in the panel.
+    // Screens of high density have several pixels per unit of the panel, their scale.
+    private GraphicsConfiguration layoutConfiguration;
+    private double screenScale = 1;
+    private int screenTileSize;
+    private int screenWidth;
+    private int screenHeight;
+    private int screenViewX;
+    private int screenViewY;
+    // Transform drawing in the pixels of a screen of high density, set from the transform of the panel
+    private final AffineTransform screenTransform = new AffineTransform();
+    // Clip of the frame being drawn, in the pixels of the screen, and the part of the board and of the view it covers
+    private final Rectangle screenClip = new Rectangle();
+    private final Rectangle boardClip = new Rectangle();
+    private final Rectangle viewClip = new Rectangle();
+
+    // Fonts and colors are created once, the fonts being derived again only when the size of the tiles changes
+    private static final Font HUD_FONT = new Font("Arial", Font.BOLD, 20);
+    private static final Font TITLE_FONT = new Font("Arial", Font.BOLD, 50);
+    private static final Font STATS_FONT = new Font("Arial", Font.PLAIN, 12);
+    private static final Color OVERLAY = new Color(0, 0, 0, 150);
+    private Font hudFont = HUD_FONT;
+    private Font titleFont = TITLE_FONT;
+    private Font statsFont = STATS_FONT;
+    // Translucent fills are copied from images filled once, filling them directly allocates on every frame.
+    // The message over the view is drawn into its image, switching fonts on every frame allocates too
+    private BufferedImage overlayImage;
+    private String overlayTitle;
+    private String overlaySubtitle;
+    private BufferedImage statsImage;
+    // Text of the HUD, built again only when its values change
+    private String livesText;
+    private String levelText;
+    private String highScoreText;
+    private int textLives = -1;
+    private int textScore = -1;
+    private int textLevel = -1;
+    private int textHighScore = -1;
+
+    // Top left corner of the part of the board in view, following Pac-Man on boards larger than the view
+    private int cameraX = 0;
+    private int cameraY = 0;
+    private int renderedCameraX = 0;
+    private int renderedCameraY = 0;
+    private int[] visibleGhosts = new int[0];
+    private int[] dirtyGhosts = new int[0];
+    // Past this many ghosts in view, repainting the whole view is cheaper than merging their regions
+    private static final int MAX_DIRTY_GHOSTS = 64;
+    // True if the blocks drawn in the last frame were not tracked, so the whole view must be repainted
+    private boolean untrackedRegions = false;
+
+    final Game game;
+    // Seed of the random source of the game, so that the game can be recorded and replayed
+    final long seed;
+    // Records the game while it is played, null when the game is not recorded
+    private ReplayRecorder recorder;
+    // Plays the game of a room of a server instead of a game of its own, null for a game played alone
+    final GameClient client;
+
+    // Parts of the board changed since the last frame, repainted instead of the whole board
+    private final RegionList dirtyRegions = new RegionList();
+    private final RegionList drawnRegions = new RegionList();
+    // What the frame being painted repaints, read on the event dispatch thread
+    private boolean frameRepaintAll;
+    private int frameViewX;
+    private int frameViewY;
+    private final Runnable paintFrame = this::paintFrame;
+    private final Rectangle hudRegion;
+    private final Rectangle statsRegion;
+    private int hudLives;
+    private int hudScore;
+    private int hudHighScore;
+    private int hudLevel;
+    private int renderedMapLoads;
+    private boolean renderedGameOver;
+    private int renderedCherries;
+    boolean showDirtyRegions = false;
+    boolean showFrameStats = false;
+    // Lines of the performance overlay and their height
+    private static final int STATS_LINES = 6;
+    private static final int STATS_LINE_HEIGHT = 14;
+    private static final Color STATS_BACKGROUND = new Color(0, 0, 0, 180);
+    // The overlay is formatted and drawn again a few times per second, not on every frame
+    private static final long STATS_REFRESH_NANOS = 250_000_000L;
+    private long statsTime;
+
+    // Fraction of the next tick already elapsed, the moving blocks are drawn between their last two positions
+    private double alpha = 1;
+
+    final GameLoop gameLoop;
+
+    // Time that can be rewound, in seconds
+    static final int REWIND_SECONDS = 10;
+    // States of the last ticks, played backward while the rewind key is held
+    final RewindBuffer rewind;
+    volatile boolean rewinding = false;
+    // Plays instead of the keyboard when set
+    volatile MonteCarloAgent agent;
+    // Directions pressed, read at the start of the next tick
+    final InputQueue inputs = new InputQueue();
+    // Time the oldest input not shown yet was pressed, read by the first frame rendered after its tick
+    private long inputTime;
+    private boolean inputPending = false;
+    // Time from a key press to the end of the first frame rendered after the tick that read it
+    private final FrameStats inputLatencies = new FrameStats(256);
+    volatile boolean paused = true;
+
+    /**
+     * Constructor for the PacMan class.
+     * @param boardWidth Width of the board
+     * @param boardHeight Height of the board
+     * @param tileSize Size of each tile
+     */
+    PacMan(int boardWidth, int boardHeight, int tileSize) {
+        this(boardWidth, boardHeight, tileSize, Game.DEFAULT_TICKS_PER_SECOND, DEFAULT_MAX_FRAMES_PER_SECOND);
+    }
+
+    /**
+     * Constructor for the PacMan class.
+     * @param boardWidth Width of the board
+     * @param boardHeight Height of the board
+     * @param tileSize Size of each tile
+     * @param ticksPerSecond Number of ticks per second of the simulation
+     * @param maxFramesPerSecond Maximum number of frames per second, 0 for no cap
+     */
+    PacMan(int boardWidth, int boardHeight, int tileSize, int ticksPerSecond, int maxFramesPerSecond) {
+        this(null, new Random().nextLong(), null, boardWidth, boardHeight, boardWidth, boardHeight, tileSize, ticksPerSecond, maxFramesPerSecond);
+    }
+
+    /**
+     * Constructor for the PacMan class, with levels loaded from files. The board is as large as the largest level,
+     * the view follows Pac-Man when the board is larger than the view.
+     * @param levels The levels of the game
+     * @param viewWidth Maximum width of the part of the board in view
+     * @param viewHeight Maximum height of the part of the board in view
+     * @param tileSize Size of each tile
+     * @param ticksPerSecond Number of ticks per second of the simulation
+     * @param maxFramesPerSecond Maximum number of frames per second, 0 for no cap
+     */
+    PacMan(LevelData[] levels, int viewWidth, int viewHeight, int tileSize, int ticksPerSecond, int maxFramesPerSecond) {
+        this(null, new Random().nextLong(), levels, 0, 0, viewWidth, viewHeight, tileSize, ticksPerSecond, maxFramesPerSecond);
+    }
+
+    /**
+     * Constructor for the PacMan class, showing the game of a room of a server.
+     * The game on screen is predicted from the inputs of the player and corrected by the states the server sends.
+     * @param client The client connected to the room
+     * @param maxFramesPerSecond Maximum number of frames per second, 0 for no cap
+     */
+    PacMan(GameClient client, int maxFramesPerSecond) {
+        this(client, client.seed, null, client.columnCount * client.tileSize, client.rowCount * client.tileSize,
+                client.columnCount * client.tileSize, client.rowCount * client.tileSize, client.tileSize,
+                client.ticksPerSecond, maxFramesPerSecond);
+    }
+
+    /**
+     * Constructor for the PacMan class.
+     * @param client The client of the server playing the game, or null for a game played alone
+     * @param seed Seed of the random source of the game
+     * @param levels The levels of the game, or null for the levels of the Level class
+     * @param boardWidth Width of the board, ignored with levels
+     * @param boardHeight Height of the board, ignored with levels
+     * @param viewWidth Maximum width of the part of the board in view
+     * @param viewHeight Maximum height of the part of the board in view
+     * @param tileSize Size of each tile
+     * @param ticksPerSecond Number of ticks per second of the simulation
+     * @param maxFramesPerSecond Maximum number of frames per second, 0 for no cap
+     */
+    private PacMan(GameClient client, long seed, LevelData[] levels, int boardWidth, int boardHeight, int viewWidth, int viewHeight,
+                   int tileSize, int ticksPerSecond, int maxFramesPerSecond) {
+        this.client = client;
+        this.seed = seed;
+        if (levels != null)
+            game = new Game(levels, tileSize, new Random(seed), 1, ticksPerSecond);
+        else
+            game = new Game(boardWidth, boardHeight, tileSize, new Random(seed), 1, ticksPerSecond);
+        game.metrics = new TickMetrics();
+        rewind = new RewindBuffer(REWIND_SECONDS * ticksPerSecond);
+        rewind.record(game);
+        renderedMapLoads = game.mapLoads;
+
+        this.BOARD_WIDTH = game.BOARD_WIDTH;
+        this.BOARD_HEIGHT = game.BOARD_HEIGHT;
+        this.VIEW_WIDTH = Math.min(viewWidth, BOARD_WIDTH);
+        this.VIEW_HEIGHT = Math.min(viewHeight, BOARD_HEIGHT);
+        this.TILE_SIZE = tileSize;
+        this.hudRegion = new Rectangle(0, 0, VIEW_WIDTH, tileSize);
+        int statsHeight = Math.min(VIEW_HEIGHT, STATS_LINES * STATS_LINE_HEIGHT + 8);
+        this.statsRegion = new Rectangle(0, VIEW_HEIGHT - statsHeight, VIEW_WIDTH, statsHeight);
+        updateCamera();
+        renderedCameraX = cameraX;
+        renderedCameraY = cameraY;
+
+        // Set the size of the JPanel
+        this.setPreferredSize(new Dimension(VIEW_WIDTH, VIEW_HEIGHT));
+        this.setBackground(Color.BLACK);
+        this.addKeyListener(this);
+        this.setFocusable(true);
+
+        // Load images, in the format of the screen the window will most likely be shown on
+        GraphicsConfiguration configuration = GraphicsEnvironment.isHeadless() ? null
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        assets = SpriteAtlas.load(tileSize, configuration);
+
+        // Set up the game loop
+        gameLoop = new GameLoop(this, ticksPerSecond, maxFramesPerSecond);
+        gameLoop.start();
+
+        assets.whenComplete((loaded, error) -> {
+            if (error != null)
+                assetError = (error.getCause() != null ? error.getCause() : error).getMessage();
+            else
+                atlas = loaded;
+            gameLoop.wakeUp();
+            repaint();
+        });
+    }
+
+    /**
+     * Waits until the images are loaded.
+     */
+    public void awaitAssets() {
+        assets.join();
+    }
+
+    /**
+     * Paints the components of the game.
+     * @param g Graphics object used for painting
+     */
+    public void paintComponent(Graphics g) {
+        synchronized (game) {
+            super.paintComponent(g);
+            draw(g);
+        }
+    }
+
+    /**
+     * Draws a block with the image of its sprite.
+     * @param g Graphics object used for drawing
+     * @param block The block to draw
+     * @param sprite The sprite to draw the block with
+     */
+    private void drawBlock(Graphics g, Game.Block block, Sprite sprite) {
+        drawSprite(g, sprite, block.x, block.y);
+    }
+
+    /**
+     * Draws a moving block at its position interpolated between the last two ticks.
+     * @param g Graphics object used for drawing
+     * @param block The block to draw
+     * @param sprite The sprite to draw the block with
+     */
+    private void drawMovingBlock(Graphics g, Game.Block block, Sprite sprite) {
+        drawSprite(g, sprite, renderX(block), renderY(block));
+    }
+
+    /**
+     * Draws a sprite at a position of the board, from the atlas at the size of the tiles on the screen.
+     * @param g Graphics object used for drawing, in the pixels of the screen
+     * @param sprite The sprite to draw
+     * @param x The x-coordinate on the board
+     * @param y The y-coordinate on the board
+     */
+    private void drawSprite(Graphics g, Sprite sprite, int x, int y) {
+        screenAtlas.draw(g, sprite, toScreen(x), toScreen(y));
+    }
+
+    /**
+     * Converts a length on the board to pixels of the screen.
+     * @param length The length, in the units of the board
+     * @return the length in pixels, rounded down
+     */
+    private int toScreen(int length) {
+        return (int) Math.floorDiv((long) length * screenTileSize, TILE_SIZE);
+    }
+
+    /**
+     * Fits the view into the panel: the largest whole number of pixels of the screen per tile that shows the whole view,
+     * the view being centered. Before the panel is laid out, the view is shown at its own size.
+     * The atlas and the fonts are made again when the size of the tiles or the screen changes.
+     * @return True if the layout changed since the last call
+     */
+    private boolean updateLayout() {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        boolean changed = configuration != layoutConfiguration;
+        if (changed) {
+            layoutConfiguration = configuration;
+            screenScale = configuration != null ? configuration.getDefaultTransform().getScaleX() : 1;
+        }
+
+        int width = (int) Math.round(getWidth() * screenScale);
+        int height = (int) Math.round(getHeight() * screenScale);
+        int tileSize;
+        if (width <= 0 || height <= 0)
+            tileSize = (int) Math.round(TILE_SIZE * screenScale);
+        else
+            tileSize = Math.max(1, Math.min(width / (VIEW_WIDTH / TILE_SIZE), height / (VIEW_HEIGHT / TILE_SIZE)));
+        changed |= tileSize != screenTileSize;
+        screenTileSize = tileSize;
+        if (width <= 0 || height <= 0) {
+            width = toScreen(VIEW_WIDTH);
+            height = toScreen(VIEW_HEIGHT);
+        }
+        changed |= width != screenWidth || height != screenHeight;
+        screenWidth = width;
+        screenHeight = height;
+        screenViewX = Math.max(0, (width - toScreen(VIEW_WIDTH)) / 2);
+        screenViewY = Math.max(0, (height - toScreen(VIEW_HEIGHT)) / 2);
+
+        if (changed) {
+            float fontScale = (float) tileSize / TILE_SIZE;
+            hudFont = tileSize == TILE_SIZE ? HUD_FONT : HUD_FONT.deriveFont(HUD_FONT.getSize2D() * fontScale);
+            titleFont = tileSize == TILE_SIZE ? TITLE_FONT : TITLE_FONT.deriveFont(TITLE_FONT.getSize2D() * fontScale);
+            statsFont = tileSize == TILE_SIZE ? STATS_FONT : STATS_FONT.deriveFont(STATS_FONT.getSize2D() * fontScale);
+            overlayImage = null;
+            statsImage = null;
+            screenAtlas = null;
+        }
+        if (screenAtlas == null && atlas != null) {
+            if (tileSize == atlas.getTileSize())
+                screenAtlas = atlas;
+            else
+                screenAtlas = scaledAtlases.computeIfAbsent(tileSize, size -> atlas.scaled(size, configuration));
+        }
+        return changed;
+    }
+
+    /**
+     * Get the x-coordinate on the screen of a point of the view.
+     * @param x The x-coordinate in the view
+     * @return the x-coordinate in pixels of the screen
+     */
+    private int viewToScreenX(int x) {
+        return screenViewX + toScreen(x);
+    }
+
+    /**
+     * Get the y-coordinate on the screen of a point of the view.
+     * @param y The y-coordinate in the view
+     * @return the y-coordinate in pixels of the screen
+     */
+    private int viewToScreenY(int y) {
+        return screenViewY + toScreen(y);
+    }
+
+    /**
+     * Makes an image filled with a translucent color, in the format of the screen, to cover a part of the view.
+     * @param width Width of the image, in pixels of the screen
+     * @param height Height of the image, in pixels of the screen
+     * @param color The color
+     * @return the image
+     */
+    private BufferedImage translucentImage(int width, int height, Color color) {
+        BufferedImage image;
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        if (configuration != null)
+            image = configuration.createCompatibleImage(width, height, Transparency.TRANSLUCENT);
+        else
+            image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D g = image.createGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        return image;
+    }
+
+    /**
+     * Repaints a region of the board now, converted to the units of the panel and rounded outward.
+     * @param region The region, in the coordinates of the board
+     * @param viewX The x-coordinate of the view on the board
+     * @param viewY The y-coordinate of the view on the board
+     */
+    private void paintBoardRegion(Rectangle region, int viewX, int viewY) {
+        int left = viewToScreenX(region.x - viewX);
+        int top = viewToScreenY(region.y - viewY);
+        int right = viewToScreenX(region.x + region.width - viewX) + 1;
+        int bottom = viewToScreenY(region.y + region.height - viewY) + 1;
+        int x = (int) Math.floor(left / screenScale);
+        int y = (int) Math.floor(top / screenScale);
+        paintImmediately(x, y, (int) Math.ceil(right / screenScale) - x, (int) Math.ceil(bottom / screenScale) - y);
+    }
+
+    /**
+     * Get the x-coordinate a moving block is drawn at.
+     * A block that jumped by more than a tile (teleport or reset) is drawn at its new position.
+     * @param block The moving block
+     * @return the interpolated x-coordinate
+     */
+    private int renderX(Game.Block block) {
+        return interpolate(block.previousX, block.x);
+    }
+
+    /**
+     * Get the y-coordinate a moving block is drawn at.
+     * @param block The moving block
+     * @return the interpolated y-coordinate
+     */
+    private int renderY(Game.Block block) {
+        return interpolate(block.previousY, block.y);
+    }
+
+    /**
+     * Get a coordinate interpolated between the last two ticks.
+     * A jump of more than a tile (teleport or reset) is not interpolated.
+     * @param previous The coordinate before the last tick
+     * @param current The coordinate after the last tick
+     * @return the coordinate to draw at
+     */
+    private int interpolate(int previous, int current) {
+        int distance = current - previous;
+        if (Math.abs(distance) > TILE_SIZE)
+            return current;
+        return previous + (int) Math.round(distance * alpha);
+    }
+
+    /**
+     * Draws the walls of the current level in a part of the board, from the chunks holding them.
+     * The chunks are drawn again if the level or the screen has changed.
+     * @param g Graphics object used for drawing, in the coordinates of the board
+     * @param clip The part of the board to draw
+     */
+    private void drawWalls(Graphics g, Rectangle clip) {
+        GraphicsConfiguration configuration = getGraphicsConfiguration();
+        if (wallChunksGrid != game.wallGrid || wallChunksConfiguration != configuration || wallChunksTileSize != screenTileSize) {
+            Arrays.fill(wallChunkKeys, -1);
+            Arrays.fill(wallChunkImages, null);
+            Arrays.fill(wallChunkUses, 0);
+            wallChunksGrid = game.wallGrid;
+            wallChunksConfiguration = configuration;
+            wallChunksTileSize = screenTileSize;
+        }
+
+        int chunkSize = TILE_SIZE * WALL_CHUNK_TILES;
+        int chunkColumns = (BOARD_WIDTH + chunkSize - 1) / chunkSize;
+        int chunkRows = (BOARD_HEIGHT + chunkSize - 1) / chunkSize;
+        int firstColumn = Math.max(0, clip.x / chunkSize);
+        int lastColumn = Math.min(chunkColumns - 1, (clip.x + clip.width - 1) / chunkSize);
+        int firstRow = Math.max(0, clip.y / chunkSize);
+        int lastRow = Math.min(chunkRows - 1, (clip.y + clip.height - 1) / chunkSize);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                g.drawImage(getWallChunk(r, c, chunkSize, configuration), toScreen(c * chunkSize), toScreen(r * chunkSize), null);
+            }
+        }
+    }
+
+    /**
+     * Get the image holding the walls and the background of a chunk of the board, drawing it if it is not cached.
+     * @param chunkRow The row of the chunk
+     * @param chunkColumn The column of the chunk
+     * @param chunkSize Size of the chunk, in the units of the board
+     * @param configuration The configuration of the screen, null if the panel is not shown
+     * @return the chunk image, in pixels of the screen
+     */
+    private BufferedImage getWallChunk(int chunkRow, int chunkColumn, int chunkSize, GraphicsConfiguration configuration) {
+        int key = chunkRow * ((BOARD_WIDTH + chunkSize - 1) / chunkSize) + chunkColumn;
+        int slot = 0;
+        for (int i = 0; i < MAX_WALL_CHUNKS; i++) {
+            if (wallChunkKeys[i] == key) {
+                wallChunkUses[i] = ++wallChunkClock;
+                return wallChunkImages[i];
+            }
+            // The chunk drawn the longest time ago makes room for the new one
+            if (wallChunkUses[i] < wallChunkUses[slot])
+                slot = i;
+        }
+        BufferedImage chunk;
+
+        // A compatible image is in the format of the screen, so Java2D can keep it in video memory
+        int tileSize = screenTileSize;
+        int chunkPixels = tileSize * WALL_CHUNK_TILES;
+        if (configuration != null) {
+            chunk = configuration.createCompatibleImage(chunkPixels, chunkPixels, Transparency.OPAQUE);
+        } else {
+            chunk = new BufferedImage(chunkPixels, chunkPixels, BufferedImage.TYPE_INT_RGB);
+        }
+
+        Graphics2D g = chunk.createGraphics();
+        g.setColor(getBackground());
+        g.fillRect(0, 0, chunkPixels, chunkPixels);
+        WallGrid wallGrid = game.wallGrid;
+        int firstRow = chunkRow * WALL_CHUNK_TILES;
+        int firstColumn = chunkColumn * WALL_CHUNK_TILES;
+        for (int r = firstRow; r < Math.min(firstRow + WALL_CHUNK_TILES, wallGrid.getRows()); r++) {
+            for (int c = firstColumn; c < Math.min(firstColumn + WALL_CHUNK_TILES, wallGrid.getColumns()); c++) {
+                if (wallGrid.isWall(r, c))
+                    screenAtlas.draw(g, Sprite.WALL, (c - firstColumn) * tileSize, (r - firstRow) * tileSize);
+            }
+        }
+        g.dispose();
+
+        wallChunkKeys[slot] = key;
+        wallChunkImages[slot] = chunk;
+        wallChunkUses[slot] = ++wallChunkClock;
+        return chunk;
+    }
+
+    /**
+     * Moves the camera so that Pac-Man is in the middle of the view, without showing anything outside the board.
+     */
+    private void updateCamera() {
+        Game.Block pacman = game.pacman;
+        cameraX = Math.max(0, Math.min(renderX(pacman) + pacman.width / 2 - VIEW_WIDTH / 2, BOARD_WIDTH - VIEW_WIDTH));
+        cameraY = Math.max(0, Math.min(renderY(pacman) + pacman.height / 2 - VIEW_HEIGHT / 2, BOARD_HEIGHT - VIEW_HEIGHT));
+    }
+
+    /**
+     * Draws the game components.
+     * Once the view has been drawn at a size, drawing it again allocates nothing, except for the performance overlay.
+     * @param g Graphics object used for drawing
+     */
+    public void draw(Graphics g) {
+        updateLayout();
+
+        // The view is drawn in the pixels of the screen, whatever the scale of the screen, so the sprites are copied as they are
+        Graphics2D g2 = (Graphics2D) g;
+        AffineTransform panelTransform = null;
+        if (screenScale != 1) {
+            panelTransform = g2.getTransform();
+            screenTransform.setToTranslation(panelTransform.getTranslateX(), panelTransform.getTranslateY());
+            g2.setTransform(screenTransform);
+        }
+
+        // Only what intersects the clip is drawn, the clip is the dirty region being repainted
+        screenClip.setBounds(0, 0, screenWidth, screenHeight);
+        g.getClipBounds(screenClip);
+
+        if (atlas == null) {
+            drawLoading(g);
+        } else {
+            drawBoard(g);
+            drawHud(g);
+        }
+        if (panelTransform != null)
+            g2.setTransform(panelTransform);
+    }
+
+    /**
+     * Draws the part of the board in view and in the clip: walls, food, Pac-Man and the ghosts.
+     * @param g Graphics object used for drawing, in the pixels of the screen
+     */
+    private void drawBoard(Graphics g) {
+        // The clip is converted to the coordinates of the view, rounded outward, and kept inside the view
+        int left = Math.max(0, Math.floorDiv((screenClip.x - screenViewX) * TILE_SIZE, screenTileSize));
+        int top = Math.max(0, Math.floorDiv((screenClip.y - screenViewY) * TILE_SIZE, screenTileSize));
+        int right = Math.min(VIEW_WIDTH, -Math.floorDiv((screenViewX - screenClip.x - screenClip.width) * TILE_SIZE, screenTileSize));
+        int bottom = Math.min(VIEW_HEIGHT, -Math.floorDiv((screenViewY - screenClip.y - screenClip.height) * TILE_SIZE, screenTileSize));
+        viewClip.setBounds(left, top, right - left, bottom - top);
+        if (viewClip.isEmpty())
+            return;
+
+        // The board is drawn in its own coordinates, only the part in view is looked at
+        int cameraX = this.cameraX;
+        int cameraY = this.cameraY;
+        Rectangle clip = boardClip;
+        clip.setBounds(viewClip.x + cameraX, viewClip.y + cameraY, viewClip.width, viewClip.height);
+        int originX = screenViewX - toScreen(cameraX);
+        int originY = screenViewY - toScreen(cameraY);
+        g.translate(originX, originY);
+
+        // Draw the walls and the background, a chunk at a time
+        drawWalls(g, clip);
+        // Draw the food of the tiles in the clip, looking only at the tiles that hold some
+        FoodGrid food = game.food;
+        int columns = food.getColumns();
+        int firstColumn = Math.max(0, clip.x / TILE_SIZE);
+        int lastColumn = Math.min(columns - 1, (clip.x + clip.width - 1) / TILE_SIZE);
+        int firstRow = Math.max(0, clip.y / TILE_SIZE);
+        int lastRow = Math.min(food.getRows() - 1, (clip.y + clip.height - 1) / TILE_SIZE);
+        int dotOffset = food.getDotOffset();
+        int dotSize = Math.max(1, toScreen(FoodGrid.DOT_SIZE));
+
+        g.setColor(Color.WHITE);
+        for (int r = firstRow; r <= lastRow; r++) {
+            int rowStart = r * columns;
+            int rowEnd = rowStart + lastColumn;
+            int y = r * TILE_SIZE;
+
+            // Draw each food (dot)
+            for (int i = food.nextDot(rowStart + firstColumn); i >= 0 && i <= rowEnd; i = food.nextDot(i + 1)) {
+                g.fillRect(toScreen((i - rowStart) * TILE_SIZE + dotOffset), toScreen(y + dotOffset), dotSize, dotSize);
+            }
+
+            // Draw cherries
+            for (int i = food.nextCherry(rowStart + firstColumn); i >= 0 && i <= rowEnd; i = food.nextCherry(i + 1)) {
+                drawSprite(g, Sprite.CHERRY, (i - rowStart) * TILE_SIZE, y);
+            }
+
+            // Draw power food
+            for (int i = food.nextPowerFood(rowStart + firstColumn); i >= 0 && i <= rowEnd; i = food.nextPowerFood(i + 1)) {
+                drawSprite(g, Sprite.POWER_FOOD, (i - rowStart) * TILE_SIZE, y);
+            }
+        }
+
+        // Draw Pacman
+        if (isVisible(clip, renderX(game.pacman), renderY(game.pacman), game.pacman))
+            drawMovingBlock(g, game.pacman, game.pacman.sprite);
+
+        // Draw each ghost near the clip, a ghost is drawn up to a tile away from its position
+        GhostStore ghosts = game.ghosts;
+        if (visibleGhosts.length < ghosts.count)
+            visibleGhosts = new int[ghosts.count];
+        int found = game.ghostGrid.query(clip.x - TILE_SIZE, clip.y - TILE_SIZE,
+                clip.width + 2 * TILE_SIZE, clip.height + 2 * TILE_SIZE, visibleGhosts);
+        for (int i = 0; i < found; i++) {
+            int ghost = visibleGhosts[i];
+            int x = interpolate(ghosts.previousX[ghost], ghosts.x[ghost]);
+            int y = interpolate(ghosts.previousY[ghost], ghosts.y[ghost]);
+            if (!clip.intersects(x, y, TILE_SIZE, TILE_SIZE))
+                continue;
+            Sprite ghostSprite = (game.ghostsScared && ghosts.scared[ghost]) ? Sprite.SCARED_GHOST : ghosts.getSprite(ghost);
+            drawSprite(g, ghostSprite, x, y);
+        }
+
+        // Outline the regions repainted by the last tick
+        if (showDirtyRegions) {
+            g.setColor(Color.GREEN);
+            for (int i = 0; i < dirtyRegions.size(); i++) {
+                Rectangle region = dirtyRegions.get(i);
+                g.drawRect(toScreen(region.x), toScreen(region.y), toScreen(region.width) - 1, toScreen(region.height) - 1);
+            }
+        }
+
+        g.translate(-originX, -originY);
+
+        // Sprites on the edge of the view spill a little over the bars around it
+        g.setColor(getBackground());
+        int viewRight = viewToScreenX(VIEW_WIDTH);
+        int viewBottom = viewToScreenY(VIEW_HEIGHT);
+        if (screenViewX > 0 || viewRight < screenWidth) {
+            g.fillRect(0, 0, screenViewX, screenHeight);
+            g.fillRect(viewRight, 0, screenWidth - viewRight, screenHeight);
+        }
+        if (screenViewY > 0 || viewBottom < screenHeight) {
+            g.fillRect(0, 0, screenWidth, screenViewY);
+            g.fillRect(0, viewBottom, screenWidth, screenHeight - viewBottom);
+        }
+    }
+
+    /**
+     * Draws the HUD over the view: the performance overlay, the score, the level, the high score
+     * and the game over or pause message.
+     * @param g Graphics object used for drawing, in the pixels of the screen
+     */
+    private void drawHud(Graphics g) {
+        // Draw the performance overlay
+        if (showFrameStats && viewClip.intersects(statsRegion))
+            drawFrameStats(g);
+
+        if (!viewClip.intersects(hudRegion) && !game.gameOver && !paused)
+            return;
+
+        // The text changes only when its values do
+        if (game.lives != textLives || game.score != textScore) {
+            textLives = game.lives;
+            textScore = game.score;
+            livesText = "x" + textLives + " Score: " + textScore;
+        }
+        if (game.level != textLevel) {
+            textLevel = game.level;
+            levelText = "Level: " + textLevel;
+        }
+        if (game.highScore != textHighScore) {
+            textHighScore = game.highScore;
+            highScoreText = "High Score: " + textHighScore;
+        }
+
+        // Draw score
+        g.setColor(Color.WHITE);
+        int scorePosX = TILE_SIZE / 2;
+        int scorePosY = viewToScreenY((int) (TILE_SIZE / 1.5));
+        g.setFont(hudFont);
+        g.drawString(livesText, viewToScreenX(scorePosX), scorePosY);
+
+        // Draw level
+        g.drawString(levelText, viewToScreenX(VIEW_WIDTH - 150), scorePosY);
+
+        // Draw high score
+        g.drawString(highScoreText, viewToScreenX(VIEW_WIDTH - 380), scorePosY);
+
+        if (game.gameOver) { // Game Over message
+            if (client == null)
+                drawOverlay(g, "GAME OVER", Color.RED, VIEW_WIDTH / 2 - 150, "Press R to restart", VIEW_WIDTH / 2 - 80);
+            else if (client.isConnected())
+                drawOverlay(g, "GAME OVER", Color.RED, VIEW_WIDTH / 2 - 150, "The next game starts soon", VIEW_WIDTH / 2 - 120);
+            else
+                drawOverlay(g, "GAME OVER", Color.RED, VIEW_WIDTH / 2 - 150, null, 0);
+        } else if (paused) { // Draw pause message
+            drawOverlay(g, "PAUSED", Color.YELLOW, VIEW_WIDTH / 2 - 100, "Press SPACE to continue", VIEW_WIDTH / 2 - 120);
+        }
+    }
+
+    /**
+     * Darkens the view and draws a message over it, from an image made again only when the message or the layout changes.
+     * @param g Graphics object used for drawing, in the pixels of the screen
+     * @param title The message, in large letters in the middle of the view
+     * @param color Color of the message
+     * @param titleX The x-coordinate of the message in the view
+     * @param subtitle The line under the message, or null
+     * @param subtitleX The x-coordinate of the line under the message in the view
+     */
+    private void drawOverlay(Graphics g, String title, Color color, int titleX, String subtitle, int subtitleX) {
+        int width = toScreen(VIEW_WIDTH);
+        int height = toScreen(VIEW_HEIGHT);
+        if (overlayImage == null || overlayImage.getWidth() != width || overlayImage.getHeight() != height
+                || !title.equals(overlayTitle) || !Objects.equals(subtitle, overlaySubtitle)) {
+            overlayImage = translucentImage(width, height, OVERLAY);
+            overlayTitle = title;
+            overlaySubtitle = subtitle;
+            Graphics overlay = overlayImage.createGraphics();
+            overlay.setColor(color);
+            overlay.setFont(titleFont);
+            overlay.drawString(title, toScreen(titleX), toScreen(VIEW_HEIGHT / 2));
+            if (subtitle != null) {
+                overlay.setFont(hudFont);
+                overlay.drawString(subtitle, toScreen(subtitleX), toScreen(VIEW_HEIGHT / 2 + 50));
+            }
+            overlay.dispose();
+        }
+        g.drawImage(overlayImage, screenViewX, screenViewY, null);
+    }
+
+    /**
+     * Draws the performance overlay at the bottom of the view: frame rate, times of the frames, ticks, renders
+     * and phases of the ticks, collision checks and allocations per tick, and the number of entities.
+     * The lines are formatted again a few times per second.
+     * @param g Graphics object used for drawing, in the pixels of the screen
+     */
+    private void drawFrameStats(Graphics g) {
+        int width = toScreen(statsRegion.width);
+        int height = toScreen(statsRegion.height);
+        long now = System.nanoTime();
+        if (statsImage == null || statsImage.getWidth() != width || statsImage.getHeight() != height) {
+            statsImage = translucentImage(width, height, STATS_BACKGROUND);
+            statsTime = now - STATS_REFRESH_NANOS;
+        }
+        if (now - statsTime >= STATS_REFRESH_NANOS) {
+            statsTime = now;
+            FrameStats frames = gameLoop.getFrameTimes();
+            TickMetrics metrics = game.metrics;
+            double meanFrame = frames.mean();
+            String[] lines = {
+                    String.format("%.0f FPS, frame %s", meanFrame > 0 ? 1e9 / meanFrame : 0, percentiles(frames)),
+                    String.format("Tick %s, render %s", percentiles(gameLoop.getTickTimes()), percentiles(gameLoop.getRenderTimes())),
+                    "Input to frame " + percentiles(inputLatencies),
+                    String.format("Collisions %s, ghosts %s", percentiles(metrics.getCollisionTimes()), percentiles(metrics.getGhostTimes())),
+                    String.format("%.0f checks/tick, %.1f KB/tick", metrics.getCollisionChecks().mean(),
+                            gameLoop.getTickAllocations().mean() / 1024),
+                    String.format("%d ghosts, %d dots, %d cherries, %d walls",
+                            game.ghosts.count, game.food.getDotCount(), game.food.getCherryCount(), game.wallGrid.getCount())
+            };
+
+            // The lines are drawn into the image of the background, with the font of the overlay
+            Graphics2D stats = statsImage.createGraphics();
+            stats.setComposite(AlphaComposite.Src);
+            stats.setColor(STATS_BACKGROUND);
+            stats.fillRect(0, 0, width, height);
+            stats.setComposite(AlphaComposite.SrcOver);
+            stats.setColor(Color.GREEN);
+            stats.setFont(statsFont);
+            for (int i = 0; i < lines.length; i++) {
+                stats.drawString(lines[i], toScreen(TILE_SIZE / 2), toScreen((i + 1) * STATS_LINE_HEIGHT));
+            }
+            stats.dispose();
+        }
+        g.drawImage(statsImage, viewToScreenX(statsRegion.x), viewToScreenY(statsRegion.y), null);
+    }
+
+    /**
+     * Describes the median and 99th percentile of durations.
+     * @param stats The durations
+     * @return the percentiles, in milliseconds
+     */
+    private static String percentiles(FrameStats stats) {
+        return String.format("p50 %.2f / p99 %.2f ms", stats.percentile(50) / 1e6, stats.percentile(99) / 1e6);
+    }
+
+    /**
+     * Draws the loading message shown until the images are loaded, or the reason they could not be.
+     * @param g Graphics object used for drawing, in the pixels of the screen
+     */
+    private void drawLoading(Graphics g) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, screenWidth, screenHeight);
+        g.setFont(hudFont);
+        if (assetError != null) {
+            g.setColor(Color.RED);
+            g.drawString("Could not load the images: " + assetError, viewToScreenX(TILE_SIZE / 2), viewToScreenY(VIEW_HEIGHT / 2));
+        } else {
+            g.setColor(Color.YELLOW);
+            g.drawString("Loading...", viewToScreenX(VIEW_WIDTH / 2 - 50), viewToScreenY(VIEW_HEIGHT / 2));
+        }
+    }
+
+    @Override
+    public boolean isActive() {
+        // A lost game can be rewound too, and the server starts a lost game again
+        return atlas != null && !paused && (!game.gameOver || rewinding || (client != null && client.isConnected()));
+    }
+
+    @Override
+    public void tick() {
+        synchronized (game) {
+            // The last direction pressed since the previous tick wins
+            char input = Game.NO_INPUT;
+            while (!inputs.isEmpty()) {
+                input = inputs.peekDirection();
+                if (!inputPending) {
+                    inputTime = inputs.peekTime();
+                    inputPending = true;
+                }
+                inputs.remove();
+            }
+
+            // The server plays the game, it cannot be rewound
+            if (client != null) {
+                client.tick(game, input);
+                return;
+            }
+
+            // A recorded game can only go forward, its replay holds the inputs only
+            if (rewinding && recorder == null) {
+                rewind.rewind(game);
+                return;
+            }
+
+            if (agent != null)
+                input = agent.nextInput(game);
+
+            if (recorder != null)
+                recorder.step(input);
+            else
+                game.step(input);
+            rewind.record(game);
+        }
+    }
+
+    /**
+     * Starts recording the game to a replay file. The game must not have been started yet.
+     * @param file The file to write the replay to
+     */
+    public void startRecording(Path file) throws IOException {
+        synchronized (game) {
+            recorder = new ReplayRecorder(Files.newOutputStream(file), game, seed);
+        }
+    }
+
+    /**
+     * Stops recording the game and closes the replay file.
+     */
+    public void stopRecording() throws IOException {
+        synchronized (game) {
+            if (recorder != null) {
+                recorder.close();
+                recorder = null;
+            }
+        }
+    }
+
+    @Override
+    public void render(double alpha) {
+        boolean repaintAll;
+        int viewX;
+        int viewY;
+        synchronized (game) {
+            this.alpha = alpha;
+
+            // A new level, the game over message, a cherry coming or going or a move of the camera changes the whole view
+            updateCamera();
+            boolean viewChanged = game.mapLoads != renderedMapLoads || game.gameOver != renderedGameOver
+                    || game.food.getCherryCount() != renderedCherries
+                    || cameraX != renderedCameraX || cameraY != renderedCameraY;
+            renderedMapLoads = game.mapLoads;
+            renderedGameOver = game.gameOver;
+            renderedCherries = game.food.getCherryCount();
+            renderedCameraX = cameraX;
+            renderedCameraY = cameraY;
+            viewX = cameraX;
+            viewY = cameraY;
+
+            // Repaint where the moving blocks were drawn in the last frame and where they are drawn now
+            dirtyRegions.clear();
+            for (int i = 0; i < drawnRegions.size(); i++) {
+                Rectangle region = drawnRegions.get(i);
+                dirtyRegions.merge(region.x, region.y, region.width, region.height);
+            }
+            drawnRegions.clear();
+            addDirtyBlock(game.pacman);
+
+            // Only the ghosts near the view can change it
+            GhostStore ghosts = game.ghosts;
+            if (dirtyGhosts.length < ghosts.count)
+                dirtyGhosts = new int[ghosts.count];
+            int found = game.ghostGrid.query(cameraX - TILE_SIZE, cameraY - TILE_SIZE,
+                    VIEW_WIDTH + 2 * TILE_SIZE, VIEW_HEIGHT + 2 * TILE_SIZE, dirtyGhosts);
+            repaintAll = viewChanged || untrackedRegions || found > MAX_DIRTY_GHOSTS;
+            untrackedRegions = found > MAX_DIRTY_GHOSTS;
+            if (!untrackedRegions) {
+                for (int i = 0; i < found; i++) {
+                    int ghost = dirtyGhosts[i];
+                    int x = interpolate(ghosts.previousX[ghost], ghosts.x[ghost]);
+                    int y = interpolate(ghosts.previousY[ghost], ghosts.y[ghost]);
+                    drawnRegions.add(x, y, TILE_SIZE, TILE_SIZE);
+                    dirtyRegions.merge(x, y, TILE_SIZE, TILE_SIZE);
+                }
+            }
+
+            // The dirty regions are in the coordinates of the board, the HUD stays at the top of the view
+            if (game.lives != hudLives || game.score != hudScore || game.highScore != hudHighScore || game.level != hudLevel) {
+                dirtyRegions.merge(hudRegion.x + cameraX, hudRegion.y + cameraY, hudRegion.width, hudRegion.height);
+                hudLives = game.lives;
+                hudScore = game.score;
+                hudHighScore = game.highScore;
+                hudLevel = game.level;
+            }
+            if (showFrameStats)
+                dirtyRegions.merge(statsRegion.x + cameraX, statsRegion.y + cameraY, statsRegion.width, statsRegion.height);
+            frameRepaintAll = repaintAll;
+            frameViewX = cameraX;
+            frameViewY = cameraY;
+        }
+
+        // Paint right away, so that the loop measures and paces the frames that are really shown
+        try {
+            SwingUtilities.invokeAndWait(paintFrame);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Failed to render a frame", e.getCause());
+        }
+
+        // The frame shows the inputs read by the ticks before it
+        if (inputPending) {
+            inputLatencies.record(System.nanoTime() - inputTime);
+            inputPending = false;
+        }
+    }
+
+    /**
+     * Checks if a block drawn at a position intersects the clip of the graphics.
+     * @param clip The clip bounds of the graphics
+     * @param x The x-coordinate the block is drawn at
+     * @param y The y-coordinate the block is drawn at
+     * @param block The block to check
+     * @return True if the block has to be drawn, false otherwise
+     */
+    private boolean isVisible(Rectangle clip, int x, int y, Game.Block block) {
+        return clip.intersects(x, y, block.width, block.height);
+    }
+
+    /**
+     * Marks the bounds a moving block is drawn at in this frame as dirty, and remembers them for the next frame.
+     * Food, cherries and power food are only eaten under Pacman, so they are covered by its bounds.
+     * @param block The moving block
+     */
+    private void addDirtyBlock(Game.Block block) {
+        int x = renderX(block);
+        int y = renderY(block);
+        drawnRegions.add(x, y, block.width, block.height);
+        dirtyRegions.merge(x, y, block.width, block.height);
+    }
+
+    /**
+     * Paints the regions of the frame prepared by {@link #render}, on the event dispatch thread.
+     */
+    private void paintFrame() {
+        // A resized window or a window moved to another screen is painted again as a whole
+        if (updateLayout() || frameRepaintAll) {
+            paintImmediately(0, 0, getWidth(), getHeight());
+        } else {
+            for (int i = 0; i < dirtyRegions.size(); i++) {
+                paintBoardRegion(dirtyRegions.get(i), frameViewX, frameViewY);
+            }
+        }
+        Toolkit.getDefaultToolkit().sync();
+    }
+
+    @Override
+    public void keyTyped(KeyEvent e) {}
+
+    @Override
+    public void keyPressed(KeyEvent e) {
+        // Playing the game backward while the backspace key is held
+        if (e.getKeyCode() == KeyEvent.VK_BACK_SPACE && !rewinding) {
+            rewinding = true;
+            gameLoop.wakeUp();
+            return;
+        }
+
+        // Preventing user to change the direction when the game is paused or game over
+        if (paused || game.gameOver)
+            return;
+
+        // The direction is applied at the start of the next tick, as soon as the key goes down
+        char direction = switch (e.getKeyCode()) {
+            case KeyEvent.VK_UP -> 'U';
+            case KeyEvent.VK_DOWN -> 'D';
+            case KeyEvent.VK_LEFT -> 'L';
+            case KeyEvent.VK_RIGHT -> 'R';
+            default -> Game.NO_INPUT;
+        };
+        if (direction != Game.NO_INPUT)
+            inputs.offer(direction, System.nanoTime());
+    }
+
+    @Override
+    public void keyReleased(KeyEvent e) {
+        if (e.getKeyCode() == KeyEvent.VK_BACK_SPACE) {
+            rewinding = false;
+            return;
+        }
+
+        if (e.getKeyCode() == KeyEvent.VK_R && game.gameOver && client == null) {
+            synchronized (game) {
+                if (recorder != null)
+                    recorder.restart();
+                else
+                    game.restart();
+                rewind.clear();
+                rewind.record(game);
+            }
+            gameLoop.wakeUp();
+            this.repaint();
+            return;
+        }
+
+        // Pausing the game when the space bar is pressed
+        if (e.getKeyCode() == KeyEvent.VK_SPACE && !game.gameOver) {
+            paused = !paused;
+            gameLoop.wakeUp();
+            this.repaint();
+            return;
+        }
+
+        // Outlining the repainted regions when the D key is pressed
+        if (e.getKeyCode() == KeyEvent.VK_D) {
+            showDirtyRegions = !showDirtyRegions;
+            this.repaint();
+            return;
+        }
+
+        // Showing the performance overlay when the F key is pressed
+        if (e.getKeyCode() == KeyEvent.VK_F) {
+            showFrameStats = !showFrameStats;
+            this.repaint();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.pinto.pacman;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocol holds the messages exchanged by a {@link GameServer} and its {@link GameClient}s.
+ * <p>
+ * Every message is a frame: its length as an int, not counting the length itself, then its type as a byte.
+ * <ul>
+ *     <li>JOIN, client to server: the name of the room, then the role asked for.</li>
+ *     <li>INPUT, client to server: the number of the input, then the direction pressed during the tick, or NO_INPUT.</li>
+ *     <li>WELCOME, server to client: the id of the player, its role and ghost, the board and the seed of the room.</li>
+ *     <li>FULL, server to client: the tick, the last input played, then a snapshot of the game.</li>
+ *     <li>DELTA, server to client: the tick, the last input played, then the difference with the previous tick.</li>
+ * </ul>
+ */
+public class Protocol {
+    public static final int DEFAULT_PORT = 7777;
+
+    // Types of the messages
+    static final byte JOIN = 1;
+    static final byte INPUT = 2;
+    static final byte WELCOME = 3;
+    static final byte FULL = 4;
+    static final byte DELTA = 5;
+
+    // Roles of the players
+    public static final int PACMAN = 0;
+    public static final int GHOST = 1;
+    public static final int SPECTATOR = 2;
+
+    // Largest frame accepted, a message longer than this closes the connection
+    static final int MAX_FRAME_SIZE = 1 << 16;
+    // Length and type of a frame
+    static final int FRAME_HEADER_SIZE = 4 + 1;
+
+    /**
+     * Get the role of a player from its name.
+     * @param name "pacman", "ghost" or "spectator"
+     * @return the role
+     * @throws IllegalArgumentException if the name is not a role
+     */
+    public static int parseRole(String name) {
+        return switch (name) {
+            case "pacman" -> PACMAN;
+            case "ghost" -> GHOST;
+            case "spectator" -> SPECTATOR;
+            default -> throw new IllegalArgumentException("Unknown role: " + name);
+        };
+    }
+
+    /**
+     * Writes the header of a frame.
+     * @param buffer The buffer to write to
+     * @param type The type of the message
+     * @param length Length of the message after its type
+     */
+    static void putHeader(ByteBuffer buffer, byte type, int length) {
+        buffer.putInt(length + 1);
+        buffer.put(type);
+    }
+
+    /**
+     * Writes a string as its length then its UTF-8 bytes.
+     * @param buffer The buffer to write to
+     * @param value The string
+     */
+    static void putString(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putVarint(buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Reads a string written by {@link #putString}.
+     * The length comes from the other side of the connection, so it is checked against the bytes left in the buffer,
+     * which must end with the frame.
+     * @param buffer The buffer to read from
+     * @return the string
+     * @throws IOException if the length is negative or goes past the end of the buffer
+     */
+    static String getString(ByteBuffer buffer) throws IOException {
+        int length = getVarint(buffer);
+        if (length < 0 || length > buffer.remaining())
+            throw new IOException("String of " + length + " bytes in " + buffer.remaining() + " bytes left");
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes a non-negative int in 7-bit groups, lowest first.
+     * @param buffer The buffer to write to
+     * @param value The value
+     */
+    static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    /**
+     * Reads an int written by {@link #putVarint}.
+     * @param buffer The buffer to read from
+     * @return the value
+     */
+    static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    /**
+     * Writes an int that may be negative, small values of either sign taking one byte.
+     * @param buffer The buffer to write to
+     * @param value The value
+     */
+    static void putSignedVarint(ByteBuffer buffer, int value) {
+        putVarint(buffer, (value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * Reads an int written by {@link #putSignedVarint}.
+     * @param buffer The buffer to read from
+     * @return the value
+     */
+    static int getSignedVarint(ByteBuffer buffer) {
+        int value = getVarint(buffer);
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,75 @@
+package com.pinto.pacman;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * RegionList holds rectangles, such as the parts of the view to repaint.
+ * The rectangles are kept when the list is cleared and reused by the next additions,
+ * so a list that has grown to its usual size no longer allocates.
+ */
+public class RegionList {
+    private Rectangle[] regions = new Rectangle[16];
+    private int count = 0;
+
+    /**
+     * Adds a region.
+     * @param x The x-coordinate of the region
+     * @param y The y-coordinate of the region
+     * @param width Width of the region
+     * @param height Height of the region
+     */
+    public void add(int x, int y, int width, int height) {
+        if (count == regions.length)
+            regions = Arrays.copyOf(regions, count * 2);
+        if (regions[count] == null)
+            regions[count] = new Rectangle();
+        regions[count++].setBounds(x, y, width, height);
+    }
+
+    /**
+     * Adds a region, merging it with the first region it overlaps.
+     * @param x The x-coordinate of the region
+     * @param y The y-coordinate of the region
+     * @param width Width of the region
+     * @param height Height of the region
+     */
+    public void merge(int x, int y, int width, int height) {
+        for (int i = 0; i < count; i++) {
+            Rectangle region = regions[i];
+            if (region.intersects(x, y, width, height)) {
+                int left = Math.min(region.x, x);
+                int top = Math.min(region.y, y);
+                int right = Math.max(region.x + region.width, x + width);
+                int bottom = Math.max(region.y + region.height, y + height);
+                region.setBounds(left, top, right - left, bottom - top);
+                return;
+            }
+        }
+        add(x, y, width, height);
+    }
+
+    /**
+     * Get a region.
+     * @param i The position of the region, from 0 to the number of regions
+     * @return the region, only valid until the list is cleared
+     */
+    public Rectangle get(int i) {
+        return regions[i];
+    }
+
+    /**
+     * Get the number of regions.
+     * @return the number of regions
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Removes every region.
+     */
+    public void clear() {
+        count = 0;
+    }
+}
@@ -0,0 +1,253 @@
+package com.pinto.pacman;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ReplayPlayer simulates again a game recorded by a {@link ReplayRecorder}.
+ * The game is rebuilt from the seed of the recording and stepped with the recorded inputs,
+ * either in real time or as fast as possible. The recorded checksums are compared with the ones of the replayed game,
+ * the first tick they differ at is kept as the desync tick.
+ */
+public class ReplayPlayer implements Closeable {
+    private final DataInputStream in;
+    private final Game game;
+    private final long seed;
+
+    private long tick = 0;
+    private long lastEventTick = 0;
+    private char pendingInput = Game.NO_INPUT;
+    private long desyncTick = -1;
+    private int checksums = 0;
+    private boolean ended = false;
+
+    // Type of the event read last, applied once the game has reached its tick
+    private int eventType;
+    private int eventChecksum;
+
+    /**
+     * Constructor for the ReplayPlayer class. Reads the header of the replay and builds its game.
+     * @param in The stream to read the replay from, closed with the player
+     * @param loader The loader to find the levels of the replay in its cache, if they were loaded from files
+     */
+    ReplayPlayer(InputStream in, LevelLoader loader) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in));
+
+        if (this.in.readInt() != ReplayRecorder.MAGIC)
+            throw new IOException("Not a replay file");
+        int version = this.in.readUnsignedByte();
+        if (version != ReplayRecorder.VERSION)
+            throw new IOException("Unsupported replay version " + version);
+
+        int boardWidth = (int) readVarint();
+        int boardHeight = (int) readVarint();
+        int tileSize = (int) readVarint();
+        int ticksPerSecond = (int) readVarint();
+        int level = (int) readVarint();
+        seed = this.in.readLong();
+
+        int levelCount = (int) readVarint();
+        if (levelCount == 0) {
+            game = new Game(boardWidth, boardHeight, tileSize, new Random(seed), level, ticksPerSecond);
+        } else {
+            LevelData[] levels = new LevelData[levelCount];
+            byte[] hash = new byte[32];
+            for (int i = 0; i < levelCount; i++) {
+                this.in.readFully(hash);
+                String hex = HexFormat.of().formatHex(hash);
+                levels[i] = loader.loadCompiled(hex);
+                if (levels[i] == null)
+                    throw new IOException("Level " + hex + " is not in the level cache");
+            }
+            game = new Game(levels, tileSize, new Random(seed), level, ticksPerSecond);
+        }
+    }
+
+    /**
+     * Opens a replay file.
+     * @param file The replay file
+     * @return the player of the replay
+     */
+    public static ReplayPlayer open(Path file) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        try {
+            return new ReplayPlayer(in, new LevelLoader(LevelLoader.defaultCacheDirectory()));
+        } catch (IOException | RuntimeException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Plays the replay until its end.
+     * @param realTime True to step the game at its tick rate, false to step it as fast as possible
+     */
+    public void play(boolean realTime) throws IOException {
+        long tickNanos = 1_000_000_000L / game.TICKS_PER_SECOND;
+        long start = System.nanoTime();
+
+        while (!ended) {
+            long target = readEvent();
+            while (tick < target) {
+                if (realTime) {
+                    long sleep = start + tick * tickNanos - System.nanoTime();
+                    if (sleep > 0)
+                        LockSupport.parkNanos(sleep);
+                }
+                step();
+            }
+            applyEvent();
+        }
+    }
+
+    /**
+     * Reads the next event of the replay.
+     * @return the tick the event happens at
+     */
+    private long readEvent() throws IOException {
+        long event;
+        try {
+            event = readVarint();
+        } catch (EOFException e) {
+            // The recording was not closed properly, the replay stops at its last event
+            eventType = ReplayRecorder.EVENT_END;
+            return tick;
+        }
+
+        eventType = (int) (event & ((1 << ReplayRecorder.EVENT_TYPE_BITS) - 1));
+        if (eventType == ReplayRecorder.EVENT_CHECKSUM)
+            eventChecksum = in.readInt();
+
+        lastEventTick += event >>> ReplayRecorder.EVENT_TYPE_BITS;
+        return lastEventTick;
+    }
+
+    /**
+     * Applies the event read last, the game being at its tick.
+     */
+    private void applyEvent() throws IOException {
+        switch (eventType) {
+            case NavGraph.UP, NavGraph.DOWN, NavGraph.LEFT, NavGraph.RIGHT -> {
+                pendingInput = game.directions[eventType];
+                // An input is recorded with the tick it is applied in
+                step();
+            }
+            case ReplayRecorder.EVENT_CHECKSUM -> {
+                checksums++;
+                if (desyncTick < 0 && game.checksum() != eventChecksum)
+                    desyncTick = tick;
+            }
+            case ReplayRecorder.EVENT_RESTART -> game.restart();
+            case ReplayRecorder.EVENT_END -> ended = true;
+            default -> throw new IOException("Unknown replay event " + eventType + " at tick " + tick);
+        }
+    }
+
+    /**
+     * Steps the game once with the pending input.
+     */
+    private void step() {
+        game.step(pendingInput);
+        pendingInput = Game.NO_INPUT;
+        tick++;
+    }
+
+    /**
+     * Reads a positive number written by {@link ReplayRecorder}, seven bits per byte.
+     * @return the number
+     */
+    private long readVarint() throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    public Game getGame() {
+        return game;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    public int getChecksums() {
+        return checksums;
+    }
+
+    /**
+     * Get the first tick at which the replayed game differs from the recorded one.
+     * @return the tick, or -1 if the replay is in sync
+     */
+    public long getDesyncTick() {
+        return desyncTick;
+    }
+
+    /**
+     * Replays recorded games and prints their results, to check that they still play the same way.
+     * Arguments: replay files or directories of replay files, with {@code --real-time} to play them at their tick rate.
+     * Games are replayed in parallel at maximum speed, unless they are played in real time.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean realTime = false;
+        List<Path> files = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--real-time")) {
+                realTime = true;
+                continue;
+            }
+
+            Path path = Path.of(arg);
+            if (Files.isDirectory(path)) {
+                try (var stream = Files.list(path)) {
+                    stream.filter(Files::isRegularFile).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(path);
+            }
+        }
+
+        final boolean REAL_TIME = realTime;
+        long start = System.nanoTime();
+        List<String> results = (REAL_TIME ? files.stream() : files.parallelStream()).map(file -> {
+            try (ReplayPlayer player = open(file)) {
+                player.play(REAL_TIME);
+                Game game = player.getGame();
+                String sync = player.getDesyncTick() < 0 ? "in sync" : "DESYNC at tick " + player.getDesyncTick();
+                return String.format("%s: score %,d, level %d, %,d ticks, %d checksums, %s",
+                        file, game.score, game.level, player.getTick(), player.getChecksums(), sync);
+            } catch (IOException e) {
+                return file + ": " + e.getMessage();
+            }
+        }).toList();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        results.forEach(System.out::println);
+        long desyncs = results.stream().filter(result -> !result.endsWith("in sync")).count();
+        System.out.printf("%,d replays in %.2f s, %,d not in sync%n", results.size(), seconds, desyncs);
+    }
+}
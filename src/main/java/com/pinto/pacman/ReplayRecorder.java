@@ -0,0 +1,140 @@
+package com.pinto.pacman;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.HexFormat;
+
+/**
+ * ReplayRecorder steps a game and records what is needed to play it again: the seed of its random source
+ * and the inputs of the player, stamped with the tick they were applied at.
+ * <p>
+ * The file starts with a header (magic number, version, board, tick rate, start level, seed and the hashes of the levels
+ * loaded from files, found again in the level cache), followed by events.
+ * Each event is one varint holding the number of ticks since the previous event and the type of the event,
+ * so an input usually takes a single byte. A checksum of the game is written every {@link #CHECKSUM_INTERVAL}
+ * ticks so that a replay can detect when it no longer matches the recorded game.
+ */
+public class ReplayRecorder implements Closeable {
+    static final int MAGIC = 0x504D5250; // "PMRP"
+    // Version 5: Pac-Man and the ghosts meet anywhere along their moves, Pac-Man no longer moves twice when it turns
+    static final int VERSION = 5;
+    static final int CHECKSUM_INTERVAL = 64;
+
+    // Types of the events, 0 to 3 are the directions in the order of Game.directions (NavGraph.UP to NavGraph.RIGHT)
+    static final int EVENT_CHECKSUM = 4;
+    static final int EVENT_RESTART = 5;
+    static final int EVENT_END = 6;
+    static final int EVENT_TYPE_BITS = 3;
+
+    private final Game game;
+    private final DataOutputStream out;
+    private long tick = 0;
+    private long lastEventTick = 0;
+
+    /**
+     * Constructor for the ReplayRecorder class. The game must not have been stepped yet.
+     * @param out The stream to write the replay to, closed with the recorder
+     * @param game The game to record
+     * @param seed The seed of the random source of the game
+     */
+    ReplayRecorder(OutputStream out, Game game, long seed) throws IOException {
+        this.game = game;
+        this.out = new DataOutputStream(new BufferedOutputStream(out));
+
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(VERSION);
+        writeVarint(game.BOARD_WIDTH);
+        writeVarint(game.BOARD_HEIGHT);
+        writeVarint(game.TILE_SIZE);
+        writeVarint(game.TICKS_PER_SECOND);
+        writeVarint(game.level);
+        this.out.writeLong(seed);
+
+        // Levels loaded from files are written as the hash they are cached under
+        int levelCount = game.levels != null ? game.levels.length : 0;
+        writeVarint(levelCount);
+        for (int i = 0; i < levelCount; i++) {
+            if (game.levels[i].getHash() == null)
+                throw new IllegalArgumentException("Only the levels loaded from files can be recorded");
+            this.out.write(HexFormat.of().parseHex(game.levels[i].getHash()));
+        }
+    }
+
+    /**
+     * Steps the game, recording the input if there is one.
+     * @param input The direction asked by the player during the tick, or Game.NO_INPUT
+     */
+    public void step(char input) {
+        if (input != Game.NO_INPUT)
+            writeEvent(game.directionIndex(input));
+
+        game.step(input);
+        tick++;
+
+        if (tick % CHECKSUM_INTERVAL == 0) {
+            writeEvent(EVENT_CHECKSUM);
+            try {
+                out.writeInt(game.checksum());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Restarts the game, recording the restart.
+     */
+    public void restart() {
+        writeEvent(EVENT_RESTART);
+        game.restart();
+    }
+
+    /**
+     * Writes the pending events to the stream.
+     */
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    /**
+     * Ends the replay and closes the stream.
+     */
+    @Override
+    public void close() throws IOException {
+        writeEvent(EVENT_END);
+        out.close();
+    }
+
+    public long getTick() {
+        return tick;
+    }
+
+    /**
+     * Writes an event at the current tick.
+     * @param type The type of the event
+     */
+    private void writeEvent(int type) {
+        try {
+            writeVarint(((tick - lastEventTick) << EVENT_TYPE_BITS) | type);
+            lastEventTick = tick;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes a positive number in as few bytes as needed, seven bits per byte.
+     * @param value The number to write
+     */
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+}
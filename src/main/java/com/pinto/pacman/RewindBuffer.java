@@ -0,0 +1,301 @@
+package com.pinto.pacman;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * RewindBuffer keeps the last states of a game so that it can be played backward, one tick at a time.
+ * <p>
+ * Only the latest snapshot is kept whole. Each older state is stored as the difference with the state after it:
+ * the two snapshots are XORed and the runs of zero bytes, most of a snapshot from one tick to the next,
+ * are replaced by their length. The differences are packed one after the other in a single circular byte array,
+ * and the oldest ones are dropped once the buffer holds its number of states.
+ */
+public class RewindBuffer {
+    private final int capacity;
+
+    // Latest snapshot, and the one being written
+    private byte[] current = new byte[0];
+    private int currentSize = 0;
+    private byte[] next = new byte[0];
+    private boolean recorded = false;
+
+    // Differences between each state and the one after it, oldest first, in a circular array of bytes
+    private byte[] deltas = new byte[4096];
+    private int deltaStart = 0;
+    private int deltaBytes = 0;
+    private final int[] deltaSizes;
+    private int firstDelta = 0;
+    private int deltaCount = 0;
+
+    // Difference being encoded or decoded
+    private byte[] scratch = new byte[0];
+
+    /**
+     * Constructor for the RewindBuffer class.
+     * @param capacity Number of past states kept, such as the number of ticks in the time that can be rewound
+     */
+    RewindBuffer(int capacity) {
+        this.capacity = capacity;
+        this.deltaSizes = new int[capacity];
+    }
+
+    /**
+     * Records the state of a game after a tick.
+     * @param game The game
+     */
+    public void record(Game game) {
+        int size = game.getSnapshotSize();
+        if (next.length < size)
+            next = new byte[size];
+        game.snapshot(ByteBuffer.wrap(next, 0, size));
+
+        if (recorded) {
+            if (deltaCount == capacity)
+                dropOldest();
+            int deltaSize = encode(next, size, current, currentSize);
+            push(deltaSize);
+        }
+
+        byte[] previous = current;
+        current = next;
+        currentSize = size;
+        next = previous;
+        recorded = true;
+    }
+
+    /**
+     * Restores a game to the state before the latest one recorded, which becomes the latest.
+     * @param game The game the states were recorded from
+     * @return True if the game was rewound, false if there is no older state
+     */
+    public boolean rewind(Game game) {
+        if (deltaCount == 0)
+            return false;
+
+        int deltaSize = pop();
+        int size = getVarint(scratch, 0);
+        byte[] previous = next.length >= size ? next : new byte[size];
+        applyDelta(deltaSize, previous, size);
+
+        next = current;
+        current = previous;
+        currentSize = size;
+        game.restore(ByteBuffer.wrap(current, 0, currentSize));
+        return true;
+    }
+
+    /**
+     * Forgets every recorded state, such as when the game restarts.
+     */
+    public void clear() {
+        recorded = false;
+        currentSize = 0;
+        deltaStart = 0;
+        deltaBytes = 0;
+        firstDelta = 0;
+        deltaCount = 0;
+    }
+
+    /**
+     * Get the number of states the game can be rewound by.
+     * @return the number of older states
+     */
+    public int size() {
+        return deltaCount;
+    }
+
+    /**
+     * Get the memory used by the differences between the states.
+     * @return the number of bytes used
+     */
+    public int getDeltaBytes() {
+        return deltaBytes;
+    }
+
+    /**
+     * Encodes the difference from a state to an older one into the scratch array.
+     * The difference is the size of the older state, then runs of unchanged bytes and of XORed bytes,
+     * each preceded by its length as a varint. The shorter snapshot counts as padded with zeros.
+     * @param newer The newer snapshot
+     * @param newerSize Size of the newer snapshot
+     * @param older The older snapshot
+     * @param olderSize Size of the older snapshot
+     * @return the size of the difference
+     */
+    private int encode(byte[] newer, int newerSize, byte[] older, int olderSize) {
+        int length = Math.max(newerSize, olderSize);
+        // Worst case: every other byte changed, each in a run of its own
+        int bound = 5 + length / 2 * 10 + length + 10;
+        if (scratch.length < bound)
+            scratch = new byte[bound];
+
+        int size = putVarint(scratch, 0, olderSize);
+        int i = 0;
+        while (i < length) {
+            int same = i;
+            while (same < length && byteAt(newer, newerSize, same) == byteAt(older, olderSize, same)) {
+                same++;
+            }
+            if (same == length)
+                break;
+
+            int changed = same;
+            while (changed < length && byteAt(newer, newerSize, changed) != byteAt(older, olderSize, changed)) {
+                changed++;
+            }
+
+            size = putVarint(scratch, size, same - i);
+            size = putVarint(scratch, size, changed - same);
+            for (int j = same; j < changed; j++) {
+                scratch[size++] = (byte) (byteAt(newer, newerSize, j) ^ byteAt(older, olderSize, j));
+            }
+            i = changed;
+        }
+        return size;
+    }
+
+    /**
+     * Rebuilds the state before the latest one from the latest one and the difference in the scratch array.
+     * @param deltaSize Size of the difference
+     * @param older The array the older snapshot is written to
+     * @param olderSize Size of the older snapshot
+     */
+    private void applyDelta(int deltaSize, byte[] older, int olderSize) {
+        System.arraycopy(current, 0, older, 0, Math.min(currentSize, olderSize));
+        Arrays.fill(older, Math.min(currentSize, olderSize), olderSize, (byte) 0);
+
+        int position = varintLength(olderSize);
+        int i = 0;
+        while (position < deltaSize) {
+            int same = getVarint(scratch, position);
+            position += varintLength(same);
+            int changed = getVarint(scratch, position);
+            position += varintLength(changed);
+
+            i += same;
+            for (int j = 0; j < changed; j++, i++) {
+                byte delta = scratch[position++];
+                if (i < olderSize)
+                    older[i] ^= delta;
+            }
+        }
+    }
+
+    /**
+     * Appends the difference in the scratch array to the circular array.
+     * @param deltaSize Size of the difference
+     */
+    private void push(int deltaSize) {
+        if (deltaBytes + deltaSize > deltas.length)
+            growDeltas(deltaBytes + deltaSize);
+
+        int end = (deltaStart + deltaBytes) % deltas.length;
+        int first = Math.min(deltaSize, deltas.length - end);
+        System.arraycopy(scratch, 0, deltas, end, first);
+        System.arraycopy(scratch, first, deltas, 0, deltaSize - first);
+        deltaBytes += deltaSize;
+
+        deltaSizes[(firstDelta + deltaCount) % capacity] = deltaSize;
+        deltaCount++;
+    }
+
+    /**
+     * Removes the newest difference from the circular array into the scratch array.
+     * @return the size of the difference
+     */
+    private int pop() {
+        deltaCount--;
+        int deltaSize = deltaSizes[(firstDelta + deltaCount) % capacity];
+        deltaBytes -= deltaSize;
+
+        if (scratch.length < deltaSize)
+            scratch = new byte[deltaSize];
+        int start = (deltaStart + deltaBytes) % deltas.length;
+        int first = Math.min(deltaSize, deltas.length - start);
+        System.arraycopy(deltas, start, scratch, 0, first);
+        System.arraycopy(deltas, 0, scratch, first, deltaSize - first);
+        return deltaSize;
+    }
+
+    /**
+     * Removes the oldest difference, the state it leads to can no longer be rewound to.
+     */
+    private void dropOldest() {
+        int deltaSize = deltaSizes[firstDelta];
+        deltaStart = (deltaStart + deltaSize) % deltas.length;
+        deltaBytes -= deltaSize;
+        firstDelta = (firstDelta + 1) % capacity;
+        deltaCount--;
+    }
+
+    /**
+     * Makes the circular array larger, moving the differences to its start.
+     * @param minimum The number of bytes needed
+     */
+    private void growDeltas(int minimum) {
+        byte[] grown = new byte[Math.max(minimum, deltas.length * 2)];
+        int first = Math.min(deltaBytes, deltas.length - deltaStart);
+        System.arraycopy(deltas, deltaStart, grown, 0, first);
+        System.arraycopy(deltas, 0, grown, first, deltaBytes - first);
+        deltas = grown;
+        deltaStart = 0;
+    }
+
+    /**
+     * Get a byte of a snapshot, the bytes after its end being zeros.
+     * @param snapshot The snapshot
+     * @param size Size of the snapshot
+     * @param index The index of the byte
+     * @return the byte
+     */
+    private static byte byteAt(byte[] snapshot, int size, int index) {
+        return index < size ? snapshot[index] : 0;
+    }
+
+    /**
+     * Writes a non-negative int in 7-bit groups, lowest first.
+     * @param bytes The array to write to
+     * @param position The index to write at
+     * @param value The value
+     * @return the index after the value
+     */
+    private static int putVarint(byte[] bytes, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Reads an int written by {@link #putVarint}.
+     * @param bytes The array to read from
+     * @param position The index of the value
+     * @return the value
+     */
+    private static int getVarint(byte[] bytes, int position) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = bytes[position++];
+            value |= (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    /**
+     * Get the number of bytes of a varint.
+     * @param value The value
+     * @return the number of bytes, from 1 to 5
+     */
+    private static int varintLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+}
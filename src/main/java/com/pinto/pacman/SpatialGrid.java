@@ -0,0 +1,127 @@
+package com.pinto.pacman;
+
+import java.util.Arrays;
+
+/**
+ * SpatialGrid is a uniform grid bucketing entities by the cell holding their top left corner, so that the entities
+ * in an area are found by looking at the cells of the area only. Entities are numbered from 0, and each cell
+ * is a linked list threaded through int arrays, so moving an entity to another cell takes constant time
+ * and never allocates.
+ * Cells must be at least as large as the entities, an entity then only overlaps its cell and the cells after it.
+ */
+public class SpatialGrid {
+    private final int cellSize;
+    private final int rows;
+    private final int columns;
+    // First entity of each cell, -1 if the cell is empty
+    private final int[] heads;
+    private final int[] next;
+    private final int[] previous;
+    // Cell of each entity, -1 if it is in none
+    private final int[] cells;
+
+    /**
+     * Constructor for the SpatialGrid class.
+     * @param width Width of the area covered by the grid
+     * @param height Height of the area covered by the grid
+     * @param cellSize Size of each cell
+     * @param capacity Number of entities, numbered from 0 to capacity - 1
+     */
+    SpatialGrid(int width, int height, int cellSize, int capacity) {
+        this.cellSize = cellSize;
+        this.rows = Math.max(1, (height + cellSize - 1) / cellSize);
+        this.columns = Math.max(1, (width + cellSize - 1) / cellSize);
+        this.heads = new int[rows * columns];
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        this.cells = new int[capacity];
+        Arrays.fill(heads, -1);
+        Arrays.fill(cells, -1);
+    }
+
+    /**
+     * Puts an entity in the bucket of its position, or moves it there if it has changed cell.
+     * @param entity The number of the entity
+     * @param x The x-coordinate of the entity
+     * @param y The y-coordinate of the entity
+     */
+    public void update(int entity, int x, int y) {
+        int cell = cellOf(x, y);
+        int oldCell = cells[entity];
+        if (cell == oldCell)
+            return;
+
+        // Unlink from the old cell
+        if (oldCell >= 0) {
+            if (previous[entity] >= 0)
+                next[previous[entity]] = next[entity];
+            else
+                heads[oldCell] = next[entity];
+            if (next[entity] >= 0)
+                previous[next[entity]] = previous[entity];
+        }
+
+        // Link at the head of the new cell
+        previous[entity] = -1;
+        next[entity] = heads[cell];
+        if (heads[cell] >= 0)
+            previous[heads[cell]] = entity;
+        heads[cell] = entity;
+        cells[entity] = cell;
+    }
+
+    /**
+     * Removes every entity from the grid, so that it can be reused for as many entities.
+     */
+    public void clear() {
+        Arrays.fill(heads, -1);
+        Arrays.fill(cells, -1);
+    }
+
+    /**
+     * Finds the entities that may overlap an area.
+     * @param x The x-coordinate of the area
+     * @param y The y-coordinate of the area
+     * @param width Width of the area
+     * @param height Height of the area
+     * @param result The array the entities are written to, large enough for all of them
+     * @return the number of entities found
+     */
+    public int query(int x, int y, int width, int height, int[] result) {
+        // An entity overlapping the area can start up to one cell before it
+        int firstColumn = Math.max(0, Math.floorDiv(x, cellSize) - 1);
+        int lastColumn = Math.min(columns - 1, Math.floorDiv(x + width - 1, cellSize));
+        int firstRow = Math.max(0, Math.floorDiv(y, cellSize) - 1);
+        int lastRow = Math.min(rows - 1, Math.floorDiv(y + height - 1, cellSize));
+
+        int found = 0;
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                for (int entity = heads[r * columns + c]; entity >= 0; entity = next[entity]) {
+                    result[found++] = entity;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Get the cell holding a position. Positions outside the grid are put in the nearest cell.
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return the index of the cell
+     */
+    private int cellOf(int x, int y) {
+        int column = Math.min(Math.max(Math.floorDiv(x, cellSize), 0), columns - 1);
+        int row = Math.min(Math.max(Math.floorDiv(y, cellSize), 0), rows - 1);
+        return row * columns + column;
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    public int getCapacity() {
+        return cells.length;
+    }
+}
@@ -0,0 +1,34 @@
+package com.pinto.pacman;
+
+/**
+ * Sprite lists the images the game can show for a block.
+ * The simulation only knows about sprites, the renderer maps them to images.
+ */
+public enum Sprite {
+    WALL("wall.png"),
+    BLUE_GHOST("blueGhost.png"),
+    ORANGE_GHOST("orangeGhost.png"),
+    PINK_GHOST("pinkGhost.png"),
+    RED_GHOST("redGhost.png"),
+    SCARED_GHOST("scaredGhost.png"),
+    CHERRY("cherry.png"),
+    POWER_FOOD("powerFood.png"),
+    PACMAN_UP("pacmanUp.png"),
+    PACMAN_DOWN("pacmanDown.png"),
+    PACMAN_LEFT("pacmanLeft.png"),
+    PACMAN_RIGHT("pacmanRight.png");
+
+    private final String fileName;
+
+    Sprite(String fileName) {
+        this.fileName = fileName;
+    }
+
+    /**
+     * Get the file name of the image of the sprite, in the images resource folder.
+     * @return the file name of the image
+     */
+    public String getFileName() {
+        return fileName;
+    }
+}
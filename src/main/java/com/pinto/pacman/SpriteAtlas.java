@@ -0,0 +1,128 @@
+package com.pinto.pacman;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * SpriteAtlas holds the image of every sprite, scaled once to the size of a tile, side by side in a single image.
+ * The atlas is in the format of the screen when there is one, so drawing a sprite is an unscaled copy
+ * that Java2D can accelerate.
+ * <p>
+ * The images are decoded in parallel, off the event dispatch thread, with {@link #load}.
+ * They are kept, so that an atlas for another tile size, such as when the window is resized or moved
+ * to a screen of another density, is packed with {@link #scaled} without decoding them again.
+ */
+public class SpriteAtlas {
+    private static final Sprite[] SPRITES = Sprite.values();
+
+    private final BufferedImage[] images;
+    private final BufferedImage atlas;
+    private final int tileSize;
+
+    /**
+     * Constructor for the SpriteAtlas class.
+     * @param images The images of the sprites at their own size, in the order of the Sprite enum
+     * @param tileSize Size of each sprite
+     * @param configuration The configuration of the screen the atlas is drawn on, or null without a screen
+     */
+    private SpriteAtlas(BufferedImage[] images, int tileSize, GraphicsConfiguration configuration) {
+        this.images = images;
+        this.tileSize = tileSize;
+        if (configuration != null) {
+            atlas = configuration.createCompatibleImage(tileSize * SPRITES.length, tileSize, Transparency.TRANSLUCENT);
+        } else {
+            atlas = new BufferedImage(tileSize * SPRITES.length, tileSize, BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        Graphics2D g = atlas.createGraphics();
+        for (int i = 0; i < SPRITES.length; i++) {
+            g.drawImage(images[i], i * tileSize, 0, tileSize, tileSize, null);
+        }
+        g.dispose();
+    }
+
+    /**
+     * Loads the images of the sprites in the background and packs them into an atlas.
+     * @param tileSize Size the sprites are drawn at
+     * @param configuration The configuration of the screen the atlas is drawn on, or null without a screen
+     * @return the atlas, once every image is loaded
+     */
+    public static CompletableFuture<SpriteAtlas> load(int tileSize, GraphicsConfiguration configuration) {
+        List<CompletableFuture<BufferedImage>> images = new ArrayList<>(SPRITES.length);
+        for (Sprite sprite : SPRITES) {
+            images.add(CompletableFuture.supplyAsync(() -> readImage(sprite)));
+        }
+
+        return CompletableFuture.allOf(images.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            BufferedImage[] decoded = new BufferedImage[SPRITES.length];
+            for (int i = 0; i < SPRITES.length; i++) {
+                decoded[i] = images.get(i).join();
+            }
+            return new SpriteAtlas(decoded, tileSize, configuration);
+        });
+    }
+
+    /**
+     * Packs the same images into an atlas of another tile size.
+     * @param tileSize Size the sprites are drawn at
+     * @param configuration The configuration of the screen the atlas is drawn on, or null without a screen
+     * @return the new atlas
+     */
+    public SpriteAtlas scaled(int tileSize, GraphicsConfiguration configuration) {
+        return new SpriteAtlas(images, tileSize, configuration);
+    }
+
+    /**
+     * Decodes the image of a sprite from the resources.
+     * @param sprite The sprite
+     * @return the image, at its own size
+     */
+    private static BufferedImage readImage(Sprite sprite) {
+        String path = "images/" + sprite.getFileName();
+        try (InputStream in = SpriteAtlas.class.getResourceAsStream(path)) {
+            if (in == null)
+                throw new IOException("Missing image " + path);
+            BufferedImage image = ImageIO.read(in);
+            if (image == null)
+                throw new IOException("Unreadable image " + path);
+            return image;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Draws a sprite at the size of a tile.
+     * @param g Graphics object used for drawing
+     * @param sprite The sprite to draw
+     * @param x The x-coordinate to draw at
+     * @param y The y-coordinate to draw at
+     */
+    public void draw(Graphics g, Sprite sprite, int x, int y) {
+        int sourceX = sprite.ordinal() * tileSize;
+        g.drawImage(atlas, x, y, x + tileSize, y + tileSize, sourceX, 0, sourceX + tileSize, tileSize, null);
+    }
+
+    /**
+     * Get the image of a sprite, sharing the pixels of the atlas.
+     * @param sprite The sprite
+     * @return the image of the sprite
+     */
+    public BufferedImage getImage(Sprite sprite) {
+        return atlas.getSubimage(sprite.ordinal() * tileSize, 0, tileSize, tileSize);
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+}
@@ -0,0 +1,249 @@
+package com.pinto.pacman;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * StateSync describes each tick of a game as its difference with the tick before, to send it over the network.
+ * <p>
+ * A difference only holds what changed: a bit mask of the counters that changed and their new values, Pac-Man if it
+ * changed, the ghosts that changed with their moves, the food tiles that changed during the tick, and the timers of the game
+ * when they changed. Positions are sent as moves
+ * from the previous position, which take a byte each. A tick that loads a new map cannot be described this way,
+ * a snapshot of the whole game is sent instead.
+ */
+public class StateSync {
+    // Bits of the mask of the changed counters
+    private static final int SCORE = 1;
+    private static final int HIGH_SCORE = 2;
+    private static final int LIVES = 4;
+    // The tick is only sent when it did not just go up by one
+    private static final int TICK = 8;
+    private static final int MODE_START = 16;
+    private static final int FLAGS = 32;
+    private static final int PACMAN = 64;
+    private static final int TIMERS = 128;
+    // Bit of the state of a ghost telling that its random source follows
+    private static final int RANDOM = 0x80;
+    private static final Sprite[] SPRITES = Sprite.values();
+
+    private final Game game;
+
+    // State of the game at the last difference written
+    private int mapLoads = -1;
+    private int score;
+    private int highScore;
+    private int lives;
+    private int tick;
+    private int modeStartTick;
+    private int flags;
+    private int pacmanX;
+    private int pacmanY;
+    private int pacmanState;
+    private int pacmanSprite;
+    private int[] ghostX = new int[0];
+    private int[] ghostY = new int[0];
+    private byte[] ghostState = new byte[0];
+    private long[] ghostRandom = new long[0];
+    private long[] timers = new long[0];
+    private int timerCount;
+
+    /**
+     * Constructor for the StateSync class.
+     * @param game The game to describe
+     */
+    StateSync(Game game) {
+        this.game = game;
+    }
+
+    /**
+     * Writes the difference between the game and its state at the last call.
+     * @param buffer The buffer to write to
+     * @return True if the difference was written, false if a new map was loaded and a snapshot must be sent instead
+     */
+    public boolean writeDelta(ByteBuffer buffer) {
+        if (game.mapLoads != mapLoads) {
+            remember();
+            return false;
+        }
+
+        int gameFlags = getFlags(game);
+        int gameTimers = game.collectTimers();
+        boolean timersChanged = !Arrays.equals(game.savedTimers, 0, gameTimers, timers, 0, timerCount);
+        int mask = (game.score != score ? SCORE : 0)
+                | (game.highScore != highScore ? HIGH_SCORE : 0)
+                | (game.lives != lives ? LIVES : 0)
+                | (game.tick != tick + 1 ? TICK : 0)
+                | (game.modeStartTick != modeStartTick ? MODE_START : 0)
+                | (gameFlags != flags ? FLAGS : 0)
+                | (game.pacman.x != pacmanX || game.pacman.y != pacmanY || game.getPacmanState() != pacmanState
+                        || game.pacman.sprite.ordinal() != pacmanSprite ? PACMAN : 0)
+                | (timersChanged ? TIMERS : 0);
+        buffer.put((byte) mask);
+        if ((mask & SCORE) != 0)
+            Protocol.putVarint(buffer, game.score);
+        if ((mask & HIGH_SCORE) != 0)
+            Protocol.putVarint(buffer, game.highScore);
+        if ((mask & LIVES) != 0)
+            Protocol.putSignedVarint(buffer, game.lives);
+        if ((mask & TICK) != 0)
+            Protocol.putVarint(buffer, game.tick);
+        if ((mask & MODE_START) != 0)
+            Protocol.putVarint(buffer, game.modeStartTick);
+        if ((mask & FLAGS) != 0)
+            buffer.put((byte) gameFlags);
+        if ((mask & PACMAN) != 0) {
+            Protocol.putSignedVarint(buffer, game.pacman.x - pacmanX);
+            Protocol.putSignedVarint(buffer, game.pacman.y - pacmanY);
+            buffer.put(game.getPacmanState());
+            buffer.put((byte) game.pacman.sprite.ordinal());
+        }
+
+        // The ghosts that changed, counted first
+        GhostStore ghosts = game.ghosts;
+        int changed = 0;
+        for (int ghost = 0; ghost < ghosts.count; ghost++) {
+            if (ghostChanged(ghost))
+                changed++;
+        }
+        Protocol.putVarint(buffer, changed);
+        for (int ghost = 0; ghost < ghosts.count && changed > 0; ghost++) {
+            if (!ghostChanged(ghost))
+                continue;
+            Protocol.putVarint(buffer, ghost);
+            Protocol.putSignedVarint(buffer, ghosts.x[ghost] - ghostX[ghost]);
+            Protocol.putSignedVarint(buffer, ghosts.y[ghost] - ghostY[ghost]);
+            boolean randomChanged = ghosts.random[ghost] != ghostRandom[ghost];
+            buffer.put((byte) (game.getGhostState(ghost) | (randomChanged ? RANDOM : 0)));
+            if (randomChanged)
+                buffer.putLong(ghosts.random[ghost]);
+            changed--;
+        }
+
+        // The tiles that changed, each with what it holds now in its two lowest bits
+        FoodGrid food = game.food;
+        Protocol.putVarint(buffer, food.getChangeCount());
+        for (int i = 0; i < food.getChangeCount(); i++) {
+            int tile = food.getChangedTile(i);
+            Protocol.putVarint(buffer, tile << 2 | food.getTile(tile));
+        }
+
+        // The timers are written the way snapshots write them
+        if (timersChanged)
+            game.writeTimers(buffer);
+
+        remember();
+        return true;
+    }
+
+    /**
+     * Applies a difference written by {@link #writeDelta} to a game in the state the difference was made from.
+     * Only the state is changed, the grids used to step the game are left as they are,
+     * so the game must be restored from its own snapshot before it is stepped.
+     * @param game The game
+     * @param buffer The buffer holding the difference
+     */
+    public static void readDelta(Game game, ByteBuffer buffer) {
+        int mask = buffer.get() & 0xFF;
+        if ((mask & SCORE) != 0)
+            game.score = Protocol.getVarint(buffer);
+        if ((mask & HIGH_SCORE) != 0)
+            game.highScore = Protocol.getVarint(buffer);
+        if ((mask & LIVES) != 0)
+            game.lives = Protocol.getSignedVarint(buffer);
+        if ((mask & TICK) != 0)
+            game.tick = Protocol.getVarint(buffer);
+        else
+            game.tick++;
+        if ((mask & MODE_START) != 0)
+            game.modeStartTick = Protocol.getVarint(buffer);
+        if ((mask & FLAGS) != 0) {
+            int flags = buffer.get();
+            game.ghostsScared = (flags & 1) != 0;
+            game.gameOver = (flags & 2) != 0;
+        }
+        if ((mask & PACMAN) != 0) {
+            game.pacman.x += Protocol.getSignedVarint(buffer);
+            game.pacman.y += Protocol.getSignedVarint(buffer);
+            game.setPacmanState(buffer.get());
+            game.pacman.sprite = SPRITES[buffer.get()];
+        }
+
+        GhostStore ghosts = game.ghosts;
+        int changed = Protocol.getVarint(buffer);
+        for (int i = 0; i < changed; i++) {
+            int ghost = Protocol.getVarint(buffer);
+            ghosts.x[ghost] += Protocol.getSignedVarint(buffer);
+            ghosts.y[ghost] += Protocol.getSignedVarint(buffer);
+            int state = buffer.get() & 0xFF;
+            game.setGhostState(ghost, state & ~RANDOM);
+            if ((state & RANDOM) != 0)
+                ghosts.random[ghost] = buffer.getLong();
+        }
+
+        int tiles = Protocol.getVarint(buffer);
+        for (int i = 0; i < tiles; i++) {
+            int tile = Protocol.getVarint(buffer);
+            game.food.setTile(tile >>> 2, tile & 3);
+        }
+
+        if ((mask & TIMERS) != 0)
+            game.readTimers(buffer);
+    }
+
+    /**
+     * Tells if a ghost changed since the last difference.
+     * @param ghost The index of the ghost
+     * @return True if the ghost moved, turned or drew a random number
+     */
+    private boolean ghostChanged(int ghost) {
+        GhostStore ghosts = game.ghosts;
+        return ghosts.x[ghost] != ghostX[ghost] || ghosts.y[ghost] != ghostY[ghost]
+                || game.getGhostState(ghost) != ghostState[ghost] || ghosts.random[ghost] != ghostRandom[ghost];
+    }
+
+    /**
+     * Packs the flags of a game the way snapshots do.
+     * @param game The game
+     * @return the flags
+     */
+    private static int getFlags(Game game) {
+        return (game.ghostsScared ? 1 : 0) | (game.gameOver ? 2 : 0);
+    }
+
+    /**
+     * Remembers the current state of the game, the next difference is made from it.
+     */
+    private void remember() {
+        mapLoads = game.mapLoads;
+        score = game.score;
+        highScore = game.highScore;
+        lives = game.lives;
+        tick = game.tick;
+        modeStartTick = game.modeStartTick;
+        flags = getFlags(game);
+        pacmanX = game.pacman.x;
+        pacmanY = game.pacman.y;
+        pacmanState = game.getPacmanState();
+        pacmanSprite = game.pacman.sprite.ordinal();
+
+        GhostStore ghosts = game.ghosts;
+        if (ghostX.length != ghosts.count) {
+            ghostX = new int[ghosts.count];
+            ghostY = new int[ghosts.count];
+            ghostState = new byte[ghosts.count];
+            ghostRandom = new long[ghosts.count];
+        }
+        System.arraycopy(ghosts.x, 0, ghostX, 0, ghosts.count);
+        System.arraycopy(ghosts.y, 0, ghostY, 0, ghosts.count);
+        System.arraycopy(ghosts.random, 0, ghostRandom, 0, ghosts.count);
+        for (int ghost = 0; ghost < ghosts.count; ghost++) {
+            ghostState[ghost] = game.getGhostState(ghost);
+        }
+
+        timerCount = game.collectTimers();
+        if (timers.length < timerCount)
+            timers = new long[game.savedTimers.length];
+        System.arraycopy(game.savedTimers, 0, timers, 0, timerCount);
+    }
+}
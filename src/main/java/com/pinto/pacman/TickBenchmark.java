@@ -0,0 +1,67 @@
+package com.pinto.pacman;
+
+import java.util.Random;
+
+/**
+ * TickBenchmark measures how many game ticks per second the game logic can run,
+ * without any rendering, on the stock levels and on a synthetic 500x500 maze.
+ * Run it with {@code java TickBenchmark}.
+ */
+public class TickBenchmark {
+    private static final int TILE_SIZE = 32;
+    private static final long WARMUP_NANOS = 2_000_000_000L;
+    private static final long MEASURED_NANOS = 5_000_000_000L;
+
+    public static void main(String[] args) {
+        for (int level = 1; level <= 3; level++) {
+            run("Level " + level, Level.getLevel(level));
+        }
+        run("Synthetic 500x500", Level.generateMaze(500, 500, 42));
+    }
+
+    /**
+     * Runs the game on a tile map and prints the number of ticks per second.
+     * @param name The name of the run
+     * @param tileMap The layout of the level
+     */
+    private static void run(String name, String[] tileMap) {
+        int rows = tileMap.length;
+        int columns = tileMap[0].length();
+        Game game = new Game(columns * TILE_SIZE, rows * TILE_SIZE, TILE_SIZE, new Random(1));
+        game.loadMap(tileMap);
+        game.resetPosition();
+
+        Random input = new Random(7);
+        runTicks(game, input, WARMUP_NANOS);
+
+        long start = System.nanoTime();
+        long ticks = runTicks(game, input, MEASURED_NANOS);
+        long elapsed = System.nanoTime() - start;
+
+        System.out.printf("%-20s %,15.0f ticks/s%n", name, ticks / (elapsed / 1e9));
+    }
+
+    /**
+     * Runs ticks for a given duration, turning Pac-Man in a random direction every few ticks.
+     * The game is restarted whenever it is over so that every tick does real work.
+     * @param game The game to run
+     * @param input The random source of the simulated player
+     * @param duration The duration to run for, in nanoseconds
+     * @return The number of ticks that were run
+     */
+    private static long runTicks(Game game, Random input, long duration) {
+        long end = System.nanoTime() + duration;
+        long i = 0;
+        for (; System.nanoTime() < end; i++) {
+            char direction = Game.NO_INPUT;
+            if (i % 8 == 0)
+                direction = game.directions[input.nextInt(game.directions.length)];
+            if (game.gameOver) {
+                game.lives = 3;
+                game.gameOver = false;
+            }
+            game.step(direction);
+        }
+        return i;
+    }
+}
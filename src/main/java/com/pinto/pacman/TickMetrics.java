@@ -0,0 +1,48 @@
+package com.pinto.pacman;
+
+/**
+ * TickMetrics records where the time of a tick goes inside the game: the collision checks against Pac-Man, walls
+ * and food, and the moves of the ghosts, along with the number of collision checks made.
+ * A game only records them when it is given a TickMetrics, so simulations without a display do not pay for it.
+ */
+public class TickMetrics {
+    private final FrameStats collisionTimes = new FrameStats(1024);
+    private final FrameStats ghostTimes = new FrameStats(1024);
+    private final FrameStats collisionChecks = new FrameStats(1024);
+
+    /**
+     * Records the phases of a tick.
+     * @param collisionNanos Time spent checking collisions, in nanoseconds
+     * @param ghostNanos Time spent moving the ghosts, in nanoseconds
+     * @param checks Number of collision checks made
+     */
+    public void record(long collisionNanos, long ghostNanos, int checks) {
+        collisionTimes.record(collisionNanos);
+        ghostTimes.record(ghostNanos);
+        collisionChecks.record(checks);
+    }
+
+    /**
+     * Get the durations of the collision checks of the ticks.
+     * @return the collision times
+     */
+    public FrameStats getCollisionTimes() {
+        return collisionTimes;
+    }
+
+    /**
+     * Get the durations of the ghost moves of the ticks.
+     * @return the ghost times
+     */
+    public FrameStats getGhostTimes() {
+        return ghostTimes;
+    }
+
+    /**
+     * Get the number of collision checks of the ticks.
+     * @return the collision checks
+     */
+    public FrameStats getCollisionChecks() {
+        return collisionChecks;
+    }
+}
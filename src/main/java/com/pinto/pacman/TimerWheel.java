@@ -0,0 +1,189 @@
+package com.pinto.pacman;
+
+import java.util.Arrays;
+
+/**
+ * TimerWheel holds the events of a game until the tick they are due, so that a tick only looks at its own events
+ * instead of checking every entity.
+ * <p>
+ * It is a hashed wheel: a timer goes in the slot of its tick modulo the number of slots, each slot being a list.
+ * A tick scans its slot, takes the timers due on it and leaves those due on a later turn of the wheel,
+ * so the work of a tick is the number of events due, plus the rare timers set more than a turn ahead.
+ * The timers are kept in arrays and reused, nothing is allocated once the wheel has grown to the number of timers.
+ * <p>
+ * An event is an int chosen by the game. The events due on the same tick are handed out in increasing order,
+ * whatever the order they were scheduled in, so that a game restored with the same timers plays the same way.
+ */
+public class TimerWheel {
+    // Must be a power of two
+    private static final int SLOTS = 256;
+
+    // First timer of each slot, -1 for an empty slot
+    private final int[] heads = new int[SLOTS];
+    private int[] deadlines = new int[16];
+    private int[] events = new int[16];
+    private int[] next = new int[16];
+    private int[] previous = new int[16];
+    private boolean[] used = new boolean[16];
+    // Unused timers are chained through the next array
+    private int free = -1;
+    private int created = 0;
+    private int count = 0;
+
+    // Events taken by the last call to expire
+    private int[] expired = new int[16];
+    private int expiredCount = 0;
+
+    /**
+     * Constructor for the TimerWheel class.
+     */
+    TimerWheel() {
+        Arrays.fill(heads, -1);
+    }
+
+    /**
+     * Adds a timer.
+     * @param deadline The tick the event is due on, after the tick being played
+     * @param event The event
+     * @return the handle of the timer, to cancel it, valid until the timer expires or is cancelled
+     */
+    public int schedule(int deadline, int event) {
+        int timer;
+        if (free >= 0) {
+            timer = free;
+            free = next[timer];
+        } else {
+            if (created == deadlines.length)
+                grow();
+            timer = created++;
+        }
+
+        int slot = deadline & (SLOTS - 1);
+        deadlines[timer] = deadline;
+        events[timer] = event;
+        used[timer] = true;
+        previous[timer] = -1;
+        next[timer] = heads[slot];
+        if (heads[slot] >= 0)
+            previous[heads[slot]] = timer;
+        heads[slot] = timer;
+        count++;
+        return timer;
+    }
+
+    /**
+     * Removes a timer before it expires.
+     * @param timer The handle of the timer
+     */
+    public void cancel(int timer) {
+        if (timer < 0 || !used[timer])
+            return;
+
+        if (previous[timer] >= 0)
+            next[previous[timer]] = next[timer];
+        else
+            heads[deadlines[timer] & (SLOTS - 1)] = next[timer];
+        if (next[timer] >= 0)
+            previous[next[timer]] = previous[timer];
+
+        used[timer] = false;
+        next[timer] = free;
+        free = timer;
+        count--;
+    }
+
+    /**
+     * Removes the timers due on a tick. Their events are then read with {@link #getExpired}, in increasing order.
+     * The ticks must be expired one after the other, a timer due on a tick that is skipped never expires.
+     * @param tick The tick being played
+     * @return the number of events due
+     */
+    public int expire(int tick) {
+        expiredCount = 0;
+        int timer = heads[tick & (SLOTS - 1)];
+        while (timer >= 0) {
+            int following = next[timer];
+            if (deadlines[timer] == tick) {
+                if (expiredCount == expired.length)
+                    expired = Arrays.copyOf(expired, expiredCount * 2);
+                expired[expiredCount++] = events[timer];
+                cancel(timer);
+            }
+            timer = following;
+        }
+        Arrays.sort(expired, 0, expiredCount);
+        return expiredCount;
+    }
+
+    /**
+     * Get an event taken by the last call to {@link #expire}.
+     * @param i The position of the event, from 0 to the number of events due
+     * @return the event
+     */
+    public int getExpired(int i) {
+        return expired[i];
+    }
+
+    /**
+     * Removes every timer.
+     */
+    public void clear() {
+        Arrays.fill(heads, -1);
+        Arrays.fill(used, 0, created, false);
+        free = -1;
+        created = 0;
+        count = 0;
+        expiredCount = 0;
+    }
+
+    /**
+     * Get the next timer in use, to iterate over the timers, in no particular order.
+     * @param from The first handle to look at
+     * @return the handle of the timer, or -1 if there is none from there
+     */
+    public int nextTimer(int from) {
+        for (int timer = from; timer < created; timer++) {
+            if (used[timer])
+                return timer;
+        }
+        return -1;
+    }
+
+    /**
+     * Get the tick a timer is due on.
+     * @param timer The handle of the timer
+     * @return the tick
+     */
+    public int getDeadline(int timer) {
+        return deadlines[timer];
+    }
+
+    /**
+     * Get the event of a timer.
+     * @param timer The handle of the timer
+     * @return the event
+     */
+    public int getEvent(int timer) {
+        return events[timer];
+    }
+
+    /**
+     * Get the number of timers waiting.
+     * @return the number of timers
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Makes the arrays of the timers twice as large.
+     */
+    private void grow() {
+        int capacity = deadlines.length * 2;
+        deadlines = Arrays.copyOf(deadlines, capacity);
+        events = Arrays.copyOf(events, capacity);
+        next = Arrays.copyOf(next, capacity);
+        previous = Arrays.copyOf(previous, capacity);
+        used = Arrays.copyOf(used, capacity);
+    }
+}
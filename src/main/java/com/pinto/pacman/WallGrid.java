@@ -0,0 +1,183 @@
+package com.pinto.pacman;
+
+/**
+ * WallGrid is a tile-indexed index of the walls of a level.
+ * It is built once when the level is compiled so that a wall check only looks at
+ * the tiles an entity overlaps instead of scanning every wall. The grid of a {@link LevelTemplate} is shared
+ * by every game on the level.
+ */
+public class WallGrid {
+    private final int rows;
+    private final int columns;
+    private final int tileSize;
+    private final boolean[] walls;
+    private int count = 0;
+
+    /**
+     * Constructor for the WallGrid class.
+     * @param rows Number of rows of the level
+     * @param columns Number of columns of the level
+     * @param tileSize Size of each tile
+     */
+    WallGrid(int rows, int columns, int tileSize) {
+        this.rows = rows;
+        this.columns = columns;
+        this.tileSize = tileSize;
+        this.walls = new boolean[rows * columns];
+    }
+
+    /**
+     * Marks a tile as a wall.
+     * @param row The row of the tile
+     * @param column The column of the tile
+     */
+    public void add(int row, int column) {
+        int index = row * columns + column;
+        if (!walls[index]) {
+            walls[index] = true;
+            count++;
+        }
+    }
+
+    /**
+     * Checks if a tile is a wall. Tiles outside the grid are never walls.
+     * @param row The row of the tile
+     * @param column The column of the tile
+     * @return True if the tile is a wall, false otherwise
+     */
+    public boolean isWall(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns)
+            return false;
+        return walls[row * columns + column];
+    }
+
+    /**
+     * Checks if a rectangle overlaps any wall.
+     * Only the tiles covered by the rectangle are looked at (1 to 4 for an entity of one tile).
+     * @param x The x-coordinate of the rectangle
+     * @param y The y-coordinate of the rectangle
+     * @param width Width of the rectangle
+     * @param height Height of the rectangle
+     * @return True if the rectangle overlaps a wall, false otherwise
+     */
+    public boolean collides(int x, int y, int width, int height) {
+        int firstColumn = Math.floorDiv(x, tileSize);
+        int lastColumn = Math.floorDiv(x + width - 1, tileSize);
+        int firstRow = Math.floorDiv(y, tileSize);
+        int lastRow = Math.floorDiv(y + height - 1, tileSize);
+
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstColumn; c <= lastColumn; c++) {
+                if (isWall(r, c))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get how far a rectangle can move along the x-axis before it touches a wall.
+     * Every column on the way is looked at, so a move longer than a tile cannot go through a wall.
+     * The rectangle must not overlap a wall before the move.
+     * @param x The x-coordinate of the rectangle
+     * @param y The y-coordinate of the rectangle
+     * @param width Width of the rectangle
+     * @param height Height of the rectangle
+     * @param distance The move, negative to the left
+     * @return the part of the move made before touching a wall, with the sign of the move
+     */
+    public int sweepX(int x, int y, int width, int height, int distance) {
+        int firstRow = Math.floorDiv(y, tileSize);
+        int lastRow = Math.floorDiv(y + height - 1, tileSize);
+
+        if (distance > 0) {
+            int right = x + width;
+            int lastColumn = Math.floorDiv(right - 1 + distance, tileSize);
+            for (int c = Math.floorDiv(right - 1, tileSize) + 1; c <= lastColumn; c++) {
+                if (isWallInRows(c, firstRow, lastRow))
+                    return c * tileSize - right;
+            }
+        } else if (distance < 0) {
+            int lastColumn = Math.floorDiv(x + distance, tileSize);
+            for (int c = Math.floorDiv(x, tileSize) - 1; c >= lastColumn; c--) {
+                if (isWallInRows(c, firstRow, lastRow))
+                    return (c + 1) * tileSize - x;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Get how far a rectangle can move along the y-axis before it touches a wall.
+     * Every row on the way is looked at, so a move longer than a tile cannot go through a wall.
+     * The rectangle must not overlap a wall before the move.
+     * @param x The x-coordinate of the rectangle
+     * @param y The y-coordinate of the rectangle
+     * @param width Width of the rectangle
+     * @param height Height of the rectangle
+     * @param distance The move, negative upward
+     * @return the part of the move made before touching a wall, with the sign of the move
+     */
+    public int sweepY(int x, int y, int width, int height, int distance) {
+        int firstColumn = Math.floorDiv(x, tileSize);
+        int lastColumn = Math.floorDiv(x + width - 1, tileSize);
+
+        if (distance > 0) {
+            int bottom = y + height;
+            int lastRow = Math.floorDiv(bottom - 1 + distance, tileSize);
+            for (int r = Math.floorDiv(bottom - 1, tileSize) + 1; r <= lastRow; r++) {
+                if (isWallInColumns(r, firstColumn, lastColumn))
+                    return r * tileSize - bottom;
+            }
+        } else if (distance < 0) {
+            int lastRow = Math.floorDiv(y + distance, tileSize);
+            for (int r = Math.floorDiv(y, tileSize) - 1; r >= lastRow; r--) {
+                if (isWallInColumns(r, firstColumn, lastColumn))
+                    return (r + 1) * tileSize - y;
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Checks if a column has a wall between two rows.
+     * @param column The column
+     * @param firstRow The first row
+     * @param lastRow The last row
+     * @return True if one of the tiles is a wall
+     */
+    private boolean isWallInRows(int column, int firstRow, int lastRow) {
+        for (int r = firstRow; r <= lastRow; r++) {
+            if (isWall(r, column))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a row has a wall between two columns.
+     * @param row The row
+     * @param firstColumn The first column
+     * @param lastColumn The last column
+     * @return True if one of the tiles is a wall
+     */
+    private boolean isWallInColumns(int row, int firstColumn, int lastColumn) {
+        for (int c = firstColumn; c <= lastColumn; c++) {
+            if (isWall(row, c))
+                return true;
+        }
+        return false;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+}